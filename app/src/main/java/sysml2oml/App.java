@@ -6,6 +6,7 @@ package sysml2oml;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -84,6 +85,41 @@ public class App {
 			order = 1)
 	private static String pairsStem;
 
+	@Parameter(
+			names = { "--metrics-path" }, 
+			description = "File path for output JSON metrics report", 
+			required = false, 
+			order = 1)
+	private static String metricsPath;
+
+	@Parameter(
+			names = { "--index-path", "-x" }, 
+			description = "File path for output taxonomy index (see query)", 
+			required = false, 
+			order = 1)
+	private static String indexPath;
+
+	@Parameter(
+			names = { "--watch" }, 
+			description = "Keep running and reconvert input files as they change", 
+			required = false, 
+			order = 1)
+	private static boolean watch;
+
+	@Parameter(
+			names = { "--threads", "-t" }, 
+			description = "Number of threads for building vocabularies (default 1)", 
+			required = false, 
+			order = 1)
+	private static int threads = 1;
+
+	@Parameter(
+			names = { "--closure-cache-path" }, 
+			description = "File path for pair closure kept between runs (optional)", 
+			required = false, 
+			order = 1)
+	private static String closureCachePath;
+
 	@Parameter(
 			names = { "--help", "-h" },
 			description = "Displays summary of options",
@@ -91,7 +127,12 @@ public class App {
 			order = 7)
 	private boolean help;
 
-    public static void main(String[] args) throws CsvValidationException, FileNotFoundException, IOException, ParserConfigurationException, XPathExpressionException {
+    public static void main(String[] args) throws CsvValidationException, FileNotFoundException, IOException, ParserConfigurationException, XPathExpressionException, InterruptedException {
+    	if (args.length > 0 && args[0].equals("query")) {
+    		TaxonomyQuery.main(Arrays.copyOfRange(args, 1, args.length));
+    		return;
+    	}
+    	
     	final App app = new App();
 		final JCommander builder = JCommander.newBuilder().addObject(app).build();
 		
@@ -104,8 +145,10 @@ public class App {
 		final Logger logger = org.slf4j.LoggerFactory.getLogger(App.class);
 				
 		final Taxonomy2Oml taxonomy2Oml = new Taxonomy2Oml(logger, inputPaths, coreVocabsPath, bundleStem, outputPath, metaclasses, mapFile,
-				catalogPath, edgelistPath, pairsStem);
+				catalogPath, edgelistPath, pairsStem, metricsPath,
+				indexPath, threads, closureCachePath);
 		
         taxonomy2Oml.run();
+        if (watch) taxonomy2Oml.watch();
     }
 }
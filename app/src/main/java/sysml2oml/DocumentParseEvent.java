@@ -0,0 +1,27 @@
+package sysml2oml;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for parsing one XMI library file.
+ */
+@Name("sysml2oml.DocumentParse")
+@Label("Document Parse")
+@Category("SysML2OML")
+@Description("Parse of a .kermlx or .sysmlx file and lookup of its library package")
+class DocumentParseEvent extends jdk.jfr.Event {
+
+	@Label("File")
+	String file;
+
+	@Label("Package")
+	String packageName;
+
+	@Label("File Size")
+	@DataAmount
+	long fileSize;
+}
@@ -0,0 +1,34 @@
+package sysml2oml;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for extracting concepts and relations from one library package.
+ */
+@Name("sysml2oml.PackageExtraction")
+@Label("Package Extraction")
+@Category("SysML2OML")
+@Description("Extraction of candidate elements, specializations and disjoinings from a library package")
+class PackageExtractionEvent extends jdk.jfr.Event {
+
+	@Label("Package")
+	String packageName;
+
+	@Label("IRI")
+	String iri;
+
+	@Label("Owned Elements")
+	int elements;
+
+	@Label("Candidates")
+	int candidates;
+
+	@Label("Specializations")
+	int specializations;
+
+	@Label("Disjoinings")
+	int disjoinings;
+}
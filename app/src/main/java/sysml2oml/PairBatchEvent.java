@@ -0,0 +1,25 @@
+package sysml2oml;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for evaluating a batch of concept pairs for satisfiability.
+ */
+@Name("sysml2oml.PairBatch")
+@Label("Pair Batch")
+@Category("SysML2OML")
+@Description("Satisfiability evaluation of a batch of concept pairs")
+class PairBatchEvent extends jdk.jfr.Event {
+
+	@Label("First Pair")
+	long firstPair;
+
+	@Label("Pairs")
+	int pairs;
+
+	@Label("Unsatisfiable Pairs")
+	int unsats;
+}
@@ -0,0 +1,369 @@
+package sysml2oml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedAcyclicGraph;
+
+/**
+ * Satisfiability of all vertex pairs of the specialization graph. A pair is unsatisfiable
+ * when no vertex specializes both, i.e. when their ancestor sets (each vertex with all its
+ * subtypes) are disjoint.
+ *
+ * A closure can be saved together with the graph's edges and a fingerprint of them, and used
+ * on a later run to bring the results up to date. Only vertices whose ancestor set an added
+ * or removed edge can change, being the edge's target and its supertypes before and after the
+ * change, get their ancestor set recomputed, and only pairs involving them are re-evaluated.
+ * Other results are carried over.
+ *
+ * The file holds, big-endian: magic, version, a SHA-256 fingerprint, vertex count n and the
+ * vertex ids; edge count m and the edges as pairs of vertex numbers; each ancestor set and
+ * then the pair statuses as a length-prefixed array of longs, pair (i, j) with i < j at bit
+ * j(j-1)/2 + i.
+ */
+public class PairClosure {
+
+	protected final static int magic = 0x53595043;		// "SYPC"
+	protected final static int version = 1;
+	protected final static int maxVertices = 65536;
+	protected final static int pairBatchSize = 100000;
+
+	protected final List<String> vertices;
+	protected final Map<String, Integer> number = new HashMap<>();
+	protected final Set<String> edges;
+	protected final byte[] fingerprint;
+	protected final BitSet[] ancestors;
+	protected final BitSet unsat;
+
+	protected int affectedVertices;
+	protected long recomputedPairs;
+	protected long changedPairs;
+
+	private PairBatchEvent batchEvent = new PairBatchEvent();
+	private int batchPairs;
+	private int batchUnsats;
+
+	private PairClosure(List<String> vertices, Set<String> edges, byte[] fingerprint, BitSet[] ancestors, BitSet unsat) {
+		this.vertices = vertices;
+		this.edges = edges;
+		this.fingerprint = fingerprint;
+		this.ancestors = ancestors;
+		this.unsat = unsat;
+		for (int i = 0; i < vertices.size(); i++) {
+			number.put(vertices.get(i), i);
+		}
+	}
+
+	/**
+	 * Computes the closure of a graph, reusing the results of a previous closure where the
+	 * graph has not changed. The previous closure may be null.
+	 */
+	public static PairClosure compute(DirectedAcyclicGraph<String, DefaultEdge> sbcSuper, PairClosure previous) {
+		final Set<String> edges = new HashSet<>();
+		sbcSuper.edgeSet().forEach(e -> edges.add(edge(sbcSuper.getEdgeSource(e), sbcSuper.getEdgeTarget(e))));
+		final byte[] fingerprint = fingerprint(sbcSuper.vertexSet(), edges);
+		if (previous != null && Arrays.equals(previous.fingerprint, fingerprint)) {
+			previous.affectedVertices = 0;
+			previous.recomputedPairs = 0;
+			previous.changedPairs = 0;
+			return previous;
+		}
+
+		/*
+		 * Number vertices, keeping the previous numbering order for those that remain.
+		 */
+
+		final List<String> vertices = new ArrayList<>();
+		if (previous != null) {
+			previous.vertices.stream().filter(sbcSuper::containsVertex).forEach(vertices::add);
+		}
+		final Set<String> kept = new HashSet<>(vertices);
+		sbcSuper.vertexSet().stream().filter(v -> !kept.contains(v)).forEach(vertices::add);
+		final int n = vertices.size();
+		if (n > maxVertices) {
+			throw new IllegalArgumentException("too many vertices for pair closure: " + n);
+		}
+		final BitSet[] ancestors = new BitSet[n];
+		final PairClosure closure = new PairClosure(vertices, edges, fingerprint, ancestors, new BitSet());
+		final int[] previousNumber = new int[n];
+		for (int i = 0; i < n; i++) {
+			final Integer p = previous == null ? null : previous.number.get(vertices.get(i));
+			previousNumber[i] = p == null ? -1 : p;
+		}
+
+		/*
+		 * Find vertices whose ancestor sets may have changed.
+		 */
+
+		final BitSet affected = new BitSet(n);
+		if (previous == null) {
+			affected.set(0, n);
+		} else {
+			for (int i = 0; i < n; i++) {
+				if (previousNumber[i] < 0) affected.set(i);
+			}
+			final Set<String> changed = new HashSet<>(edges);
+			changed.removeAll(previous.edges);
+			final Set<String> removed = new HashSet<>(previous.edges);
+			removed.removeAll(edges);
+			changed.addAll(removed);
+			final Set<String> targets = new HashSet<>();
+			changed.forEach(e -> targets.add(e.substring(e.indexOf('\t') + 1)));
+			for (String target : targets) {
+				if (sbcSuper.containsVertex(target)) {
+					affected.set(closure.number.get(target));
+					sbcSuper.getDescendants(target).forEach(v -> affected.set(closure.number.get(v)));
+				}
+				final Integer t = previous.number.get(target);
+				if (t != null) {
+					for (int p = 0; p < previous.vertices.size(); p++) {
+						if (previous.ancestors[p].get(t)) {
+							final Integer i = closure.number.get(previous.vertices.get(p));
+							if (i != null) affected.set(i);
+						}
+					}
+				}
+			}
+		}
+		closure.affectedVertices = affected.cardinality();
+
+		/*
+		 * Carry over unaffected ancestor sets, renumbered if vertices were removed. Then
+		 * recompute affected ones in topological order, subtypes first, each as the union of
+		 * its direct subtypes' sets.
+		 */
+
+		final int previousCount = previous == null ? 0 : previous.vertices.size();
+		final long retained = Arrays.stream(previousNumber).filter(p -> p >= 0).count();
+		final boolean prefix = previous != null && retained == previousCount;
+		final int[] renumber = new int[previousCount];
+		Arrays.fill(renumber, -1);
+		for (int i = 0; i < n; i++) {
+			if (previousNumber[i] >= 0) renumber[previousNumber[i]] = i;
+		}
+		for (int i = 0; i < n; i++) {
+			if (affected.get(i)) continue;
+			final BitSet p = previous.ancestors[previousNumber[i]];
+			if (prefix) {
+				ancestors[i] = p;
+			} else {
+				final BitSet a = new BitSet(n);
+				for (int b = p.nextSetBit(0); b >= 0; b = p.nextSetBit(b + 1)) {
+					if (renumber[b] >= 0) a.set(renumber[b]);
+				}
+				ancestors[i] = a;
+			}
+		}
+		for (String v : sbcSuper) {
+			final int i = closure.number.get(v);
+			if (!affected.get(i)) continue;
+			final BitSet a = new BitSet(n);
+			a.set(i);
+			sbcSuper.incomingEdgesOf(v).forEach(e -> a.or(ancestors[closure.number.get(sbcSuper.getEdgeSource(e))]));
+			ancestors[i] = a;
+		}
+
+		/*
+		 * Evaluate pairs involving affected vertices and carry over the rest. If no vertex was
+		 * removed the previous numbering is a prefix of this one and pair positions are unchanged.
+		 */
+
+		closure.batchEvent.begin();
+		if (prefix) {
+			closure.unsat.or(previous.unsat);
+			for (int j = 1; j < n; j++) {
+				if (affected.get(j)) {
+					for (int i = 0; i < j; i++) {
+						final boolean known = j < previousCount;
+						closure.evaluate(i, j, known, known && previous.unsat.get(pairIndex(i, j)));
+					}
+				} else {
+					for (int i = affected.nextSetBit(0); i >= 0 && i < j; i = affected.nextSetBit(i + 1)) {
+						closure.evaluate(i, j, true, previous.unsat.get(pairIndex(i, j)));
+					}
+				}
+			}
+		} else {
+			for (int j = 1; j < n; j++) {
+				final boolean jAffected = affected.get(j);
+				for (int i = 0; i < j; i++) {
+					final boolean known = previousNumber[i] >= 0 && previousNumber[j] >= 0;
+					final boolean was = known && previous.unsat.get(pairIndex(previousNumber[i], previousNumber[j]));
+					if (jAffected || affected.get(i)) {
+						closure.evaluate(i, j, known, was);
+					} else if (was) {
+						closure.unsat.set(pairIndex(i, j));
+					}
+				}
+			}
+		}
+		closure.commitBatch();
+		return closure;
+	}
+
+	/**
+	 * Evaluates a pair, counting it as changed if it is new or its status differs, and
+	 * reports pairs in batches as flight recorder events.
+	 */
+	private void evaluate(int i, int j, boolean known, boolean was) {
+		final boolean u = !ancestors[i].intersects(ancestors[j]);
+		if (u) {
+			unsat.set(pairIndex(i, j));
+			batchUnsats++;
+		} else {
+			unsat.clear(pairIndex(i, j));
+		}
+		if (!known || u != was) changedPairs++;
+		recomputedPairs++;
+		if (++batchPairs == pairBatchSize) {
+			commitBatch();
+			batchEvent = new PairBatchEvent();
+			batchEvent.begin();
+		}
+	}
+
+	private void commitBatch() {
+		if (batchPairs > 0 && batchEvent.shouldCommit()) {
+			batchEvent.pairs = batchPairs;
+			batchEvent.firstPair = recomputedPairs - batchPairs;
+			batchEvent.unsats = batchUnsats;
+			batchEvent.commit();
+		}
+		batchPairs = 0;
+		batchUnsats = 0;
+	}
+
+	public boolean isUnsatisfiable(String a, String b) {
+		final int i = number.get(a);
+		final int j = number.get(b);
+		return unsat.get(i < j ? pairIndex(i, j) : pairIndex(j, i));
+	}
+
+	public long unsatCount() {
+		return unsat.cardinality();
+	}
+
+	/**
+	 * Reads a saved closure. Returns null if there is none or it is not readable or not
+	 * consistent, so that a corrupt file only costs a full computation. Counts are checked
+	 * against the file size before anything is allocated for them.
+	 */
+	public static PairClosure read(String path) {
+		if (!Files.isRegularFile(Paths.get(path))) return null;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+			final long size = Files.size(Paths.get(path));
+			if (in.readInt() != magic || in.readInt() != version) return null;
+			final byte[] fingerprint = new byte[32];
+			in.readFully(fingerprint);
+			final int n = in.readInt();
+			if (n < 0 || n > maxVertices || 2L * n > size) return null;
+			final List<String> vertices = new ArrayList<>(n);
+			for (int i = 0; i < n; i++) {
+				vertices.add(in.readUTF());
+			}
+			if (new HashSet<>(vertices).size() != n) return null;
+			final int m = in.readInt();
+			if (m < 0 || 8L * m > size) return null;
+			final Set<String> edges = new HashSet<>();
+			for (int k = 0; k < m; k++) {
+				edges.add(edge(vertices.get(in.readInt()), vertices.get(in.readInt())));
+			}
+			final BitSet[] ancestors = new BitSet[n];
+			for (int i = 0; i < n; i++) {
+				ancestors[i] = readBits(in, size);
+				if (ancestors[i].length() > n) return null;
+			}
+			final BitSet unsat = readBits(in, size);
+			if (unsat.length() > (long) n * (n - 1) / 2) return null;
+			return new PairClosure(vertices, edges, fingerprint, ancestors, unsat);
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	public void write(String path) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+			out.writeInt(magic);
+			out.writeInt(version);
+			out.write(fingerprint);
+			out.writeInt(vertices.size());
+			for (String v : vertices) {
+				out.writeUTF(v);
+			}
+			out.writeInt(edges.size());
+			for (String e : edges) {
+				final int tab = e.indexOf('\t');
+				out.writeInt(number.get(e.substring(0, tab)));
+				out.writeInt(number.get(e.substring(tab + 1)));
+			}
+			for (BitSet a : ancestors) {
+				writeBits(out, a);
+			}
+			writeBits(out, unsat);
+		}
+	}
+
+	private static int pairIndex(int i, int j) {
+		return (int) ((long) j * (j - 1) / 2 + i);
+	}
+
+	private static String edge(String source, String target) {
+		return source + "\t" + target;
+	}
+
+	private static byte[] fingerprint(Set<String> vertices, Set<String> edges) {
+		try {
+			final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (String v : new TreeSet<>(vertices)) {
+				digest.update(v.getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) '\n');
+			}
+			digest.update((byte) '\n');
+			for (String e : new TreeSet<>(edges)) {
+				digest.update(e.getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) '\n');
+			}
+			return digest.digest();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static BitSet readBits(DataInputStream in, long size) throws IOException {
+		final int count = in.readInt();
+		if (count < 0 || 8L * count > size) throw new IOException("bad word count " + count);
+		final long[] words = new long[count];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = in.readLong();
+		}
+		return BitSet.valueOf(words);
+	}
+
+	private static void writeBits(DataOutputStream out, BitSet bits) throws IOException {
+		final long[] words = bits.toLongArray();
+		out.writeInt(words.length);
+		for (long w : words) {
+			out.writeLong(w);
+		}
+	}
+}
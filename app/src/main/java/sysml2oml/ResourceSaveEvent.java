@@ -0,0 +1,24 @@
+package sysml2oml;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for saving one output OML resource.
+ */
+@Name("sysml2oml.ResourceSave")
+@Label("Resource Save")
+@Category("SysML2OML")
+@Description("Save of an output OML resource")
+class ResourceSaveEvent extends jdk.jfr.Event {
+
+	@Label("URI")
+	String uri;
+
+	@Label("File Size")
+	@DataAmount
+	long fileSize;
+}
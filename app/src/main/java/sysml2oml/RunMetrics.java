@@ -0,0 +1,161 @@
+package sysml2oml;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records wall time, CPU time, allocation and item counts for the phases of a conversion
+ * run and writes them as a JSON report.
+ *
+ * CPU time is that of the whole process. Allocation is that of the thread that begins and
+ * ends a phase, plus that of tasks the phase runs on worker threads through
+ * {@link Phase#measured}, so it does not depend on whether workers are still alive when the
+ * phase ends.
+ */
+public class RunMetrics {
+
+	protected final Instant startTime = Instant.now();
+	protected final long startNanos = System.nanoTime();
+	protected final List<Phase> phases = new ArrayList<>();
+
+	private final com.sun.management.OperatingSystemMXBean osBean =
+			(com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+	private final com.sun.management.ThreadMXBean threadBean =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+	private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+	private final List<GarbageCollectorMXBean> gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+
+	public class Phase {
+		protected final String name;
+		protected final Map<String, Long> counts = new LinkedHashMap<>();
+		private final long wall0 = System.nanoTime();
+		private final long cpu0 = osBean.getProcessCpuTime();
+		private final long allocated0 = threadBean.getCurrentThreadAllocatedBytes();
+		private final AtomicLong workerAllocatedBytes = new AtomicLong();
+		private final long gc0 = gcMillis();
+		protected long wallNanos;
+		protected long cpuNanos;
+		protected long allocatedBytes;
+		protected long gcMillis;
+		protected long heapUsedBytes;
+
+		private Phase(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Adds n to the count of the named item.
+		 */
+		public void count(String item, long n) {
+			counts.merge(item, n, Long::sum);
+		}
+
+		/**
+		 * Wraps a task to be run on a worker thread so that its allocation is added to this phase.
+		 */
+		public <T> Callable<T> measured(Callable<T> task) {
+			return () -> {
+				final long allocated = threadBean.getCurrentThreadAllocatedBytes();
+				try {
+					return task.call();
+				} finally {
+					workerAllocatedBytes.addAndGet(threadBean.getCurrentThreadAllocatedBytes() - allocated);
+				}
+			};
+		}
+
+		public void end() {
+			wallNanos = System.nanoTime() - wall0;
+			cpuNanos = osBean.getProcessCpuTime() - cpu0;
+			allocatedBytes = threadBean.getCurrentThreadAllocatedBytes() - allocated0 + workerAllocatedBytes.get();
+			gcMillis = gcMillis() - gc0;
+			heapUsedBytes = memoryBean.getHeapMemoryUsage().getUsed();
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s %.3f s wall %.3f s cpu %d MB allocated %s", name, wallNanos / 1e9, cpuNanos / 1e9,
+					allocatedBytes >> 20, counts);
+		}
+	}
+
+	/**
+	 * Starts measuring a named phase.
+	 */
+	public Phase begin(String name) {
+		final Phase phase = new Phase(name);
+		phases.add(phase);
+		return phase;
+	}
+
+	public List<Phase> getPhases() {
+		return phases;
+	}
+
+	public void write(String path) throws IOException {
+		final StringBuilder sb = new StringBuilder();
+		sb.append("{\n");
+		sb.append("  \"startTime\": \"").append(startTime).append("\",\n");
+		sb.append("  \"wallNanos\": ").append(System.nanoTime() - startNanos).append(",\n");
+		sb.append("  \"maxHeapBytes\": ").append(memoryBean.getHeapMemoryUsage().getMax()).append(",\n");
+		sb.append("  \"availableProcessors\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+		sb.append("  \"phases\": [");
+		for (int i = 0; i < phases.size(); i++) {
+			final Phase p = phases.get(i);
+			sb.append(i == 0 ? "\n" : ",\n");
+			sb.append("    {\n");
+			sb.append("      \"name\": ").append(quote(p.name)).append(",\n");
+			sb.append("      \"wallNanos\": ").append(p.wallNanos).append(",\n");
+			sb.append("      \"cpuNanos\": ").append(p.cpuNanos).append(",\n");
+			sb.append("      \"allocatedBytes\": ").append(p.allocatedBytes).append(",\n");
+			sb.append("      \"gcMillis\": ").append(p.gcMillis).append(",\n");
+			sb.append("      \"heapUsedBytes\": ").append(p.heapUsedBytes).append(",\n");
+			sb.append("      \"counts\": {");
+			final String[] sep = { "" };
+			p.counts.forEach((item, n) -> {
+				sb.append(sep[0]).append(quote(item)).append(": ").append(n);
+				sep[0] = ", ";
+			});
+			sb.append("},\n");
+			sb.append("      \"perSecond\": {");
+			sep[0] = "";
+			p.counts.forEach((item, n) -> {
+				final double rate = p.wallNanos > 0 ? n * 1e9 / p.wallNanos : 0.0;
+				sb.append(sep[0]).append(quote(item)).append(": ").append(String.format(Locale.ROOT, "%.1f", rate));
+				sep[0] = ", ";
+			});
+			sb.append("}\n");
+			sb.append("    }");
+		}
+		sb.append("\n  ]\n");
+		sb.append("}\n");
+
+		final FileWriter writer = new FileWriter(path);
+		writer.write(sb.toString());
+		writer.close();
+	}
+
+	private static String quote(String s) {
+		return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+
+	private long gcMillis() {
+		long total = 0;
+		for (GarbageCollectorMXBean gc : gcBeans) {
+			final long t = gc.getCollectionTime();
+			if (t > 0) total += t;
+		}
+		return total;
+	}
+}
@@ -0,0 +1,297 @@
+package sysml2oml;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.slf4j.Logger;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.opencsv.CSVWriter;
+
+/**
+ * Generates a synthetic SysML XMI library for scale testing of {@link Taxonomy2Oml}.
+ *
+ * Packages are written under {@code <output>/sysml.library.xmi} so that the generated
+ * vocabulary IRIs match those of the published library. The first package owns the
+ * root classifier {@code Anything}; every other element belongs to a tree of the given
+ * depth and fan-out within its package, and may additionally specialize or be disjoint
+ * from elements of earlier packages by cross-file href. A matching supertypes map is
+ * written alongside, so the generated corpus converts with
+ * {@code -m sysml:Classifier -m sysml:Class -m sysml:DataType -m sysml:Structure}.
+ */
+public class SyntheticCorpus {
+
+	protected final static String libraryDir = "sysml.library.xmi";
+	protected final static String kermlDir = "Synthetic Kernel Library";
+	protected final static String sysmlDir = "Synthetic Systems Library";
+	protected final static String rootName = "Anything";
+	protected final static String[] metaclasses = { "Class", "DataType", "Structure" };
+
+	@Parameter(
+			names = { "--output-path", "-o" },
+			description = "Output path",
+			required = true,
+			order = 1)
+	private String outputPath;
+
+	@Parameter(
+			names = { "--packages", "-p" },
+			description = "Number of library packages",
+			required = false,
+			order = 1)
+	private int packageCount = 10;
+
+	@Parameter(
+			names = { "--kerml-packages" },
+			description = "Number of packages written as .kermlx",
+			required = false,
+			order = 1)
+	private int kermlPackageCount = 1;
+
+	@Parameter(
+			names = { "--elements", "-n" },
+			description = "Number of classifiers per package",
+			required = false,
+			order = 1)
+	private int elementCount = 100;
+
+	@Parameter(
+			names = { "--depth", "-d" },
+			description = "Depth of specialization trees within a package",
+			required = false,
+			order = 1)
+	private int depth = 4;
+
+	@Parameter(
+			names = { "--fan-out", "-f" },
+			description = "Number of direct subclassifiers per classifier",
+			required = false,
+			order = 1)
+	private int fanOut = 4;
+
+	@Parameter(
+			names = { "--cross-file-ratio" },
+			description = "Fraction of classifiers with a supertype in an earlier package",
+			required = false,
+			order = 1)
+	private double crossFileRatio = 0.25;
+
+	@Parameter(
+			names = { "--disjoint-ratio" },
+			description = "Fraction of classifiers with a disjoining",
+			required = false,
+			order = 1)
+	private double disjointRatio = 0.1;
+
+	@Parameter(
+			names = { "--supertypes-map", "-s" },
+			description = "File path for output supertypes map (default <output>/supertypes.csv)",
+			required = false,
+			order = 1)
+	private String mapFile;
+
+	@Parameter(
+			names = { "--seed" },
+			description = "Seed for random choices",
+			required = false,
+			order = 1)
+	private long seed = 0;
+
+	@Parameter(
+			names = { "--help", "-h" },
+			description = "Displays summary of options",
+			help = true,
+			order = 7)
+	private boolean help;
+
+	private final Logger logger = org.slf4j.LoggerFactory.getLogger(SyntheticCorpus.class);
+
+	private Random random;
+	private final List<String> fileRefs = new ArrayList<>();
+	private final List<String[]> idsByPackage = new ArrayList<>();
+
+	public static void main(String[] args) throws IOException, ParserConfigurationException, TransformerException {
+		final SyntheticCorpus corpus = new SyntheticCorpus();
+		final JCommander builder = JCommander.newBuilder().addObject(corpus).build();
+
+		builder.parse(args);
+		if (corpus.help) {
+			builder.usage();
+			return;
+		}
+
+		corpus.run();
+	}
+
+	public void run() throws IOException, ParserConfigurationException, TransformerException {
+		if (packageCount < 1 || elementCount < 1 || depth < 1 || fanOut < 1) {
+			throw new IllegalArgumentException("packages, elements, depth and fan-out must be positive");
+		}
+		random = new Random(seed);
+
+		final DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+		final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+		transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+		transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+
+		/*
+		 * Write packages in order, so that cross-file references only target earlier
+		 * packages and the specialization graph stays acyclic.
+		 */
+
+		for (int p = 0; p < packageCount; p++) {
+			final boolean kerml = p < kermlPackageCount;
+			final String dir = kerml ? kermlDir : sysmlDir;
+			final String stem = packageName(p) + (kerml ? ".kermlx" : ".sysmlx");
+			final File file = new File(outputPath + "/" + libraryDir + "/" + dir, stem);
+			file.getParentFile().mkdirs();
+
+			final Document doc = createPackage(builder, p);
+			transformer.transform(new DOMSource(doc), new StreamResult(file));
+			fileRefs.add("../" + dir.replaceAll(" ", "%20") + "/" + stem);
+			logger.info("package file path " + file.getPath());
+		}
+
+		/*
+		 * Write matching implicit supertypes map.
+		 */
+
+		final String mapPath = (mapFile != null) ? mapFile : outputPath + "/supertypes.csv";
+		final CSVWriter mapWriter = new CSVWriter(new FileWriter(mapPath));
+		final String[] header = { "Abstract syntax", "Implicit subclassification to superclassifier" };
+		mapWriter.writeNext(header);
+		for (String mc : metaclasses) {
+			final String[] row = { mc, packageName(0) + "::" + rootName };
+			mapWriter.writeNext(row);
+		}
+		mapWriter.close();
+		logger.info("supertypes map path " + mapPath);
+
+		logger.info(String.format("generated %d packages with %d classifiers", packageCount, packageCount * elementCount));
+	}
+
+	private Document createPackage(DocumentBuilder builder, int p) {
+		final Document doc = builder.newDocument();
+		final Element ns = doc.createElement("sysml:Namespace");
+		ns.setAttribute("xmi:version", "2.0");
+		ns.setAttribute("xmlns:xmi", "http://www.omg.org/XMI");
+		ns.setAttribute("xmlns:xsi", "http://www.w3.org/2001/XMLSchema-instance");
+		ns.setAttribute("xmlns:sysml", "https://www.omg.org/spec/SysML/20230201");
+		ns.setAttribute("elementId", newId());
+		doc.appendChild(ns);
+
+		final Element pkg = addOwnedMember(doc, ns, "sysml:LibraryPackage", newId(), packageName(p));
+		pkg.setAttribute("isStandard", "true");
+
+		/*
+		 * Element i is the root of a tree when its index within a tree of the given
+		 * depth and fan-out is zero; otherwise it specializes its in-file parent.
+		 */
+
+		long treeSize = 0;
+		for (long d = 0, w = 1; d < depth && treeSize < elementCount; d++, w *= fanOut) treeSize += w;
+
+		final String[] ids = new String[elementCount];
+		for (int i = 0; i < elementCount; i++) {
+			ids[i] = newId();
+			final boolean root = p == 0 && i == 0;
+			final String tp = root ? "sysml:Classifier" : "sysml:" + metaclasses[i % metaclasses.length];
+			final String dn = root ? rootName : "Element" + p + "_" + i;
+			final Element e = addOwnedMember(doc, pkg, tp, ids[i], dn);
+			if (root) continue;
+
+			final int j = (int) (i % treeSize);
+			if (j > 0) {
+				addRelationship(doc, e, "sysml:Subclassification", "superclassifier", ids[i - j + (j - 1) / fanOut]);
+			}
+			if (p > 0 && random.nextDouble() < crossFileRatio) {
+				final int q = random.nextInt(p);
+				final String[] qIds = idsByPackage.get(q);
+				addRelationshipHref(doc, e, "sysml:Subclassification", "superclassifier", fileRefs.get(q), qIds[random.nextInt(qIds.length)]);
+			}
+
+			if (random.nextDouble() < disjointRatio) {
+				if (p > 0 && random.nextBoolean()) {
+					final int q = random.nextInt(p);
+					final String[] qIds = idsByPackage.get(q);
+					addRelationshipHref(doc, e, "sysml:Disjoining", "disjoiningType", fileRefs.get(q), qIds[random.nextInt(qIds.length)]);
+				} else if (i > 1) {
+					final int k = 1 + random.nextInt(i - 1);
+					addRelationship(doc, e, "sysml:Disjoining", "disjoiningType", ids[k]);
+				}
+			}
+
+			/*
+			 * Interleave members that are not mapped to concepts.
+			 */
+
+			if (i % 10 == 0) {
+				addOwnedMember(doc, pkg, "sysml:Feature", newId(), "feature" + p + "_" + i);
+				final Element anonymous = addOwnedMember(doc, pkg, "sysml:Classifier", newId(), null);
+				addRelationship(doc, anonymous, "sysml:Subclassification", "superclassifier", ids[i]);
+			}
+		}
+		idsByPackage.add(ids);
+
+		return doc;
+	}
+
+	private Element addOwnedMember(Document doc, Element owner, String type, String id, String declaredName) {
+		final Element membership = doc.createElement("ownedRelationship");
+		membership.setAttribute("xsi:type", "sysml:OwningMembership");
+		membership.setAttribute("elementId", newId());
+		owner.appendChild(membership);
+
+		final Element member = doc.createElement("ownedRelatedElement");
+		member.setAttribute("xsi:type", type);
+		member.setAttribute("elementId", id);
+		if (declaredName != null) member.setAttribute("declaredName", declaredName);
+		membership.appendChild(member);
+		return member;
+	}
+
+	private void addRelationship(Document doc, Element owner, String type, String role, String targetId) {
+		final Element rel = doc.createElement("ownedRelationship");
+		rel.setAttribute("xsi:type", type);
+		rel.setAttribute("elementId", newId());
+		rel.setAttribute(role, targetId);
+		owner.appendChild(rel);
+	}
+
+	private void addRelationshipHref(Document doc, Element owner, String type, String role, String fileRef, String targetId) {
+		final Element rel = doc.createElement("ownedRelationship");
+		rel.setAttribute("xsi:type", type);
+		rel.setAttribute("elementId", newId());
+		owner.appendChild(rel);
+
+		final Element target = doc.createElement(role);
+		target.setAttribute("href", fileRef + "#" + targetId);
+		rel.appendChild(target);
+	}
+
+	private String newId() {
+		return new UUID(random.nextLong(), random.nextLong()).toString();
+	}
+
+	private static String packageName(int p) {
+		return "SyntheticPackage" + p;
+	}
+}
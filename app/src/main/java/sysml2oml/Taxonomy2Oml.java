@@ -6,12 +6,21 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -32,15 +41,21 @@ import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
 import org.eclipse.emf.ecore.util.ECrossReferenceAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.DirectedAcyclicGraph;
 import org.jgrapht.graph.SimpleDirectedGraph;
@@ -76,6 +91,8 @@ import io.opencaesar.oml.util.OmlRead;
 public class Taxonomy2Oml {
 	
 	protected final static String catalogStem = "catalog.xml";
+	protected final static long watchDebounceMillis = 300;
+	protected final static Pattern xmiPattern = Pattern.compile(".*\\.(kermlx|sysmlx)");
 	protected final Logger logger;
 	protected final List<String> inputPaths;
 	protected final String coreVocabsPath;
@@ -86,6 +103,10 @@ public class Taxonomy2Oml {
 	protected final String catalogPath;
 	protected final String edgelistPath;
 	protected final String pairsStem;
+	protected final String metricsPath;
+	protected final String indexPath;
+	protected final int threads;
+	protected final String closureCachePath;
 	
 	protected final Map<String, URI> iriByDeclName = new HashMap<>();
 	protected final Map<URI, String> outputFn = new HashMap<>();
@@ -93,22 +114,37 @@ public class Taxonomy2Oml {
 	protected final Map<URI, Vocabulary> vocabularies = new HashMap<>();
 	protected final Map<String, Concept> concepts = new HashMap<>();
 	protected final Map<String, String> catalogMap = new HashMap<>();
+	protected final Map<String, String> stMap = new HashMap<>();
+	protected final Map<Path, URI> iriByFile = new HashMap<>();
+	protected final Set<URI> outputResourceUris = new HashSet<>();
+	protected final Map<Vocabulary, Set<Vocabulary>> imported = new HashMap<>();
+	protected final Map<String, Integer> partitionById = new HashMap<>();
 	
 	protected final Map<String, Map<String, String>> sbcById = new HashMap<>();
 	protected final Map<String, String> idByDn = new HashMap<>();
 	protected final Map<String, String> idByName = new HashMap<>();
 	protected final Map<Concept, String> dnByConcept = new HashMap<>();
+	protected final Map<Concept, String> qNameByConcept = new HashMap<>();
 	
 	protected final DirectedAcyclicGraph<String, DefaultEdge> sbcSuper = new DirectedAcyclicGraph<String, DefaultEdge>(DefaultEdge.class);
 	protected final SimpleDirectedGraph<String, DefaultEdge> djClass = new SimpleDirectedGraph<String, DefaultEdge>(DefaultEdge.class);
 	protected final SimpleDirectedGraph<String, DefaultEdge> sbcImplicit = new SimpleDirectedGraph<String, DefaultEdge>(DefaultEdge.class);
+	protected final Set<DefaultEdge> implicitEdges = new HashSet<>();
+	
+	protected XPathExpression topPackageXPath;
+	protected DocumentBuilder documentBuilder;
+	protected ResourceSet outputResourceSet;
+	protected OmlFactory oml;
+	protected OmlBuilder omlBuilder;
+	protected URI bundleUri;
 	
 	/**
 	 * Constructs a new instance
 	 * 
 	 */
 	public Taxonomy2Oml(Logger logger, List<String> inputPaths, String coreVocabsPath, String bundleStem, String outputPath, Set<String> metaclasses, String mapFile,
-			String catalogPath, String edgelistPath, String pairsStem) {
+			String catalogPath, String edgelistPath, String pairsStem, String metricsPath,
+			String indexPath, int threads, String closureCachePath) {
 		this.logger = logger;
 		this.inputPaths = inputPaths;
 		this.coreVocabsPath = coreVocabsPath;
@@ -119,32 +155,27 @@ public class Taxonomy2Oml {
 		this.catalogPath = catalogPath;
 		this.edgelistPath = edgelistPath;
 		this.pairsStem = pairsStem;
+		this.metricsPath = metricsPath;
+		this.indexPath = indexPath;
+		this.threads = threads;
+		this.closureCachePath = closureCachePath;
 	}
 	
 	public void run() throws CsvValidationException, FileNotFoundException, IOException, ParserConfigurationException, XPathExpressionException {
 		
+		final RunMetrics metrics = new RunMetrics();
+		
 		/*
 		 * Compile xpath expressions for later use.
 		 */
 		
-		XPath xPath = XPathFactory.newInstance().newXPath();
-		XPathExpression topPackageXPath = xPath.compile("Namespace/ownedRelationship[@type='sysml:OwningMembership']/ownedRelatedElement[@type='sysml:LibraryPackage']");
-		XPathExpression ownedRelationshipXPath = xPath.compile("ownedRelationship[@type='sysml:OwningMembership']/ownedRelatedElement");
-		XPathExpression subclassificationXPath = xPath.compile(
-				"ownedRelationship[@type='sysml:Subclassification']/superclassifier[@href]/@href" +
-						" | ownedRelationship[@type='sysml:Subclassification']/@superclassifier"
-				);
-		XPathExpression disjoiningXPath = xPath.compile(
-				"ownedRelationship[@type='sysml:Disjoining']/disjoiningType[@href]/@href" +
-						" | ownedRelationship[@type='sysml:Disjoining']/@disjoiningType"
-				);
+		compileXPaths();
 
 		/*
 		 * Load implicit supertypes map.
 		 */
 		
 		final CSVReaderHeaderAware csvReader = new CSVReaderHeaderAware(new FileReader(mapFile));
-		final Map<String, String> stMap = new HashMap<>();
 		Map <String, String> tm = new HashMap<>();
 		while ((tm = csvReader.readMap()) != null) {
 			final String key = "sysml:" + tm.get("Abstract syntax");
@@ -153,97 +184,29 @@ public class Taxonomy2Oml {
 		}
 		csvReader.close();
 		
-		/*
-		 * Open optional output edgelist.
-		 */
-		final CSVWriter edgelistWriter = (edgelistPath != null) ? 
-			new CSVWriter(new FileWriter(edgelistPath)) : null;
-		
 		/*
 		 * Find all XMI files in path and parse.
 		 */
 		
-		final Pattern pattern = Pattern.compile(".*\\.(kermlx|sysmlx)");
-		final DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+		documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
 
 		logger.info("load documents");
+		final RunMetrics.Phase loadPhase = metrics.begin("documentLoad");
 		inputPaths.forEach(pathString -> {
 			try {
 				final Path inputPath = Paths.get(pathString);
 				Files.walk(inputPath)
 				.filter(Files::isRegularFile)
-                .filter(p -> pattern.matcher(p.getFileName().toString()).matches())
-				.forEach(filePath -> {
-					
-					logger.info("document file path " + filePath.toString());
-					String dirName = filePath.getParent().toString();
-
-					/*
-					 * Parse XMI document.
-					 */
-					
-					Document doc = null;
-					try {
-						doc = builder.parse(new FileInputStream(filePath.toString()));
-						doc.getDocumentElement().normalize();
-					} catch (SAXException | IOException e) {
-						// TODO Auto-generated catch block
-						e.printStackTrace();
-					}
-					try {
-						
-						/*
-						 * Find Library Package.
-						 */
-						
-						final NodeList topNodes = (NodeList) topPackageXPath.evaluate(doc, XPathConstants.NODESET);
-						if (topNodes.getLength() == 0) {
-							logger.error("no library package found for " + filePath);
-							throw(new RuntimeException());
-						}
-						final Node topPackage = topNodes.item(0);
-						final NamedNodeMap topPackageAttributes = topPackage.getAttributes();
-						
-						/*
-						 * Construct vocabulary IRI and cache it.
-						 */
-						
-						final String declaredName = topPackageAttributes.getNamedItem("declaredName").getNodeValue();
-						final URI iri = makeIri(dirName, declaredName);
-						iriByDeclName.put(declaredName, iri);
-						logger.info("  document iri " + iri);
-						
-						/*
-						 * Construct output filename and cache it.
-						 */
-						
-						final String fn = makeOutputFn(outputPath, inputPath, filePath);
-						logger.info("  output file path " + fn);
-						outputFn.put(iri, fn);
-						
-						/*
-						 * Cache document by IRI.
-						 */
-						
-						packages.put(iri, topPackage);
-						
-						/*
-						 * Create catalog entry for this document.
-						 */
-						
-						catalogMap.put(makeCatalogStartString(inputPath, filePath), makeCatalogRewritePrefix(inputPath, filePath));
-						
-					} catch (XPathExpressionException e) {
-						// TODO Auto-generated catch block
-						e.printStackTrace();
-					}
-				});
+                .filter(p -> xmiPattern.matcher(p.getFileName().toString()).matches())
+				.forEach(filePath -> loadDocument(inputPath, filePath));
 			} catch (IOException e) {
 				// TODO Auto-generated catch block
 				e.printStackTrace();
 			}
 		});
 		logger.info(String.format("loaded %d documents", packages.size()));
+		loadPhase.count("documents", packages.size());
+		loadPhase.end();
 		
 		/*
 		 * Add catalog rule for bundle (optional).
@@ -263,15 +226,13 @@ public class Taxonomy2Oml {
 		OmlXMIResourceFactory.register();
 		OmlJsonResourceFactory.register();
 		
-		final ResourceSet outputResourceSet = new ResourceSetImpl();
-		outputResourceSet.getLoadOptions().put(OmlConstants.RESOLVE_IRI_USING_RESOURCE_SET, true);
-		outputResourceSet.eAdapters().add(new ECrossReferenceAdapter());
+		outputResourceSet = createResourceSet();
 		
 		logger.info("create oml factory");
-		OmlFactory oml = OmlFactory.eINSTANCE;
+		oml = OmlFactory.eINSTANCE;
 		
 		logger.info("create builder");
-		OmlBuilder omlBuilder = new OmlBuilder(outputResourceSet);
+		omlBuilder = new OmlBuilder(outputResourceSet);
 		
 		logger.info("start builder");
 		omlBuilder.start();
@@ -280,21 +241,9 @@ public class Taxonomy2Oml {
 		 * Load core vocabularies.
 		 */
 		
-		final Pattern omlPattern = Pattern.compile(".*\\.oml");
-		try {
-			final Path vocabsPath = Paths.get(coreVocabsPath);
-			Files.walk(vocabsPath)
-			.filter(Files::isRegularFile)
-            .filter(p -> omlPattern.matcher(p.getFileName().toString()).matches())
-			.forEach(filePath -> {
-				logger.info("core vocabulary file path " + filePath.toString());
-				final URI ontologyUri = URI.createFileURI(filePath.toAbsolutePath().toString());
-				OmlRead.getOntology(outputResourceSet.getResource(ontologyUri, true));
-			});
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		}
+		final RunMetrics.Phase coreVocabPhase = metrics.begin("coreVocabularyLoad");
+		coreVocabPhase.count("vocabularies", loadCoreVocabularies(outputResourceSet));
+		coreVocabPhase.end();
 
 				
 		/*
@@ -302,207 +251,114 @@ public class Taxonomy2Oml {
 		 */
 		
 		logger.info("process packages");
-		packages.forEach((iri, pkg) -> {
-			final Node packageNameNode = pkg.getAttributes().getNamedItem("declaredName");
-			final String packageName = packageNameNode.getNodeValue();
+		final RunMetrics.Phase packagePhase = metrics.begin("packageProcessing");
+		packages.forEach((iri, pkg) -> processPackage(iri, pkg));
+		packagePhase.count("packages", packages.size());
+		packagePhase.count("candidates", sbcById.size());
+		packagePhase.count("specializationEdges", sbcSuper.edgeSet().size());
+		packagePhase.count("implicitEdges", sbcImplicit.edgeSet().size());
+		packagePhase.count("disjoiningEdges", djClass.edgeSet().size());
+		packagePhase.end();
+		
+		/*
+		 * Merge implicit concept specialization axioms with explicit.
+		 */
+
+		mergeImplicitEdges();
+			  			
+		if (threads > 1) {
 			
 			/*
-			 * Find elements that will become concepts.
+			 * Create vocabularies and concept definitions in concurrent partitions.
 			 */
 			
-			NodeList sbcs = null;
-			try {
-				sbcs = (NodeList) ownedRelationshipXPath.evaluate(pkg, XPathConstants.NODESET);
-			} catch (XPathExpressionException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
-			for (int i = 0; i < sbcs.getLength(); i++) {
-				final Node sbc = sbcs.item(i);
-				final NamedNodeMap sbcAttributes = sbc.getAttributes();
-				
-				final Node dnNode = sbcAttributes.getNamedItem("declaredName");
-				if (dnNode == null) continue;
-				String dn = dnNode.getNodeValue();
-				
-				final Node tpNode = sbcAttributes.getNamedItem("xsi:type");
-				final String tp = tpNode.getNodeValue();
-				if (!metaclasses.contains(tp)) continue;
-				
-				final Node idNode = sbcAttributes.getNamedItem("elementId");
-				final String id = idNode.getNodeValue();
-				final String qName = packageName + ":" + dn;
-				final Map<String, String> m = new HashMap<>();
-				m.put("name", dn);
-				m.put("iri", iri.toString());
-				sbcById.put(id, m);
-				idByDn.put(dn, id);
-				idByName.put(qName, id);
-				sbcSuper.addVertex(id);
-				djClass.addVertex(id);
-				logger.info("candidate " + dn + " type " + tp + " vocab-iri " + iri + " id " + id);
-
-				/*
-				 * Find  superclass relations.
-				 */
-				
-				NodeList supc = null;
-				try {
-					supc = (NodeList) subclassificationXPath.evaluate(sbc, XPathConstants.NODESET);
-				} catch (XPathExpressionException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
-				for (int j = 0; j < supc.getLength(); j++) {
-					final String supId = supc.item(j).getTextContent().replaceAll("\\A.*#", "");
-					sbcSuper.addVertex(supId);
-					sbcSuper.addEdge(id, supId);
-					logger.info("specialization " + id + " :> " + supId);
-				}
-				
-				/*
-				 * Add implicit superclass relations.
-				 */
-
-				if (sbcSuper.outDegreeOf(id) == 0) {
-					logger.info("tp " + tp);
-					final String spcType = stMap.get(tp);
-					if (spcType != null) {
-			            logger.info("implicit edge " + qName + " :> " + spcType);
-			            sbcImplicit.addVertex(qName);
-			            sbcImplicit.addVertex(spcType);
-						sbcImplicit.addEdge(qName, spcType);
-					}
-				}
-				
-				/*
-				 * Find  disjoining relations.
-				 */
-				
-				NodeList djc = null;
-				try {
-					djc = (NodeList) disjoiningXPath.evaluate(sbc, XPathConstants.NODESET);
-				} catch (XPathExpressionException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
-				for (int j = 0; j < djc.getLength(); j++) {
-					final String djId = djc.item(j).getTextContent().replaceAll("\\A.*#", "");
-					djClass.addVertex(djId);
-					djClass.addEdge(id, djId);
-					logger.info("disjoining " + id + " " + djId);
-				}
-
-			}
+			logger.info(String.format("create vocabularies in %d partitions", threads));
+			final RunMetrics.Phase partitionPhase = metrics.begin("partitions");
+			buildPartitions(partitionPhase);
+			partitionPhase.count("vocabularies", vocabularies.size());
+			partitionPhase.count("concepts", concepts.size());
+			partitionPhase.end();
+		} else {
 			
-		});
-		
-		/*
-		 * Create vocabularies.
-		 */
-		
-		logger.info("create vocabularies");		
-		final Set<URI> outputResourceUris = new HashSet<>();
-		packages.forEach((iri, pkg) -> {
-			final URI uri = URI.createFileURI(outputFn.get(iri));
-			outputResourceUris.add(uri);
-			final String namespace = iri.toString() + "#";
-			final Vocabulary v = omlBuilder.createVocabulary(uri, namespace, Paths.get(iri.toString()).getFileName().toString().toLowerCase());
-			vocabularies.put(iri, v);
+			/*
+			 * Create vocabularies.
+			 */
 			
-			final Import rdfsImport = oml.createImport();
-			rdfsImport.setKind(ImportKind.EXTENSION);
-			rdfsImport.setNamespace("http://www.w3.org/2000/01/rdf-schema#");
-			rdfsImport.setPrefix("rdfs");
-			rdfsImport.setOwningOntology(vocabularies.get(iri));
-		});
+			logger.info("create vocabularies");		
+			final RunMetrics.Phase vocabularyPhase = metrics.begin("vocabularyCreation");
+			packages.forEach((iri, pkg) -> createVocabulary(iri));
+			vocabularyPhase.count("vocabularies", vocabularies.size());
+			vocabularyPhase.end();
+			
+			/*
+			 * Add concept definitions.
+			 */
 		
-		/*
-		 * Add concept definitions.
-		 */
-	
-		sbcById.forEach((id, c) -> {
-			final Vocabulary v = vocabularies.get(URI.createURI(c.get("iri")));
-			final String cName = cleanIdentifier(c.get("name"));
-			final Literal cLiteral = omlBuilder.createLiteral(c.get("name"));
-			final Concept concept = omlBuilder.addConcept(v, cName);
-			concepts.put(id, concept);
-			logger.info("concept " + cName + " label " + cLiteral.getLexicalValue() + " id " + id);
-			omlBuilder.addAnnotation(v, concept.getIri(), "http://www.w3.org/2000/01/rdf-schema#label", cLiteral);
-			dnByConcept.put(concept, c.get("name"));
-		});
+			final RunMetrics.Phase conceptPhase = metrics.begin("concepts");
+			sbcById.forEach((id, c) -> addConcept(id, c));
+			conceptPhase.count("concepts", concepts.size());
+			conceptPhase.end();
+		}
 			
 		/*
-		 * Merge implicit concept specialization axioms with explicit.
+		 * Add explicit concept specialization axioms and extension axioms, except those already
+		 * added within a partition. Each phase counts only the statements it adds.
 		 */
 
-		sbcImplicit.edgeSet().forEach(e -> {
-			final String es = idByName.get(sbcImplicit.getEdgeSource(e));
-			final String et = idByName.get(sbcImplicit.getEdgeTarget(e));
-			sbcSuper.addEdge(es, et);
-		});
-			  			
-		/*
-		 * Add explicit concept specialization axioms and extension axioms.
-		 */
-
-		Map<Vocabulary, Set<Vocabulary>> imported = new HashMap<>();
-
+		final RunMetrics.Phase specializationPhase = metrics.begin("specializations");
+		final long[] specializations = { 0 };
 		sbcSuper.edgeSet().forEach(e -> {
 			final String es = sbcSuper.getEdgeSource(e);
 			final String et = sbcSuper.getEdgeTarget(e);
-			addSpecialization(concepts, es, et, omlBuilder, dnByConcept, logger, imported, false, edgelistWriter);
+			if (!samePartition(es, et)) {
+				addSpecialization(concepts, es, et, omlBuilder, dnByConcept, qNameByConcept, logger, imported, false);
+				specializations[0]++;
+			}
 		});
 			  			
-		if (edgelistWriter != null) edgelistWriter.close();
+		if (edgelistPath != null) writeEdgelist();
+		specializationPhase.count("edges", specializations[0]);
+		specializationPhase.end();
+
+		/*
+		 * Write optional taxonomy index.
+		 */
+		
+		if (indexPath != null) {
+			final RunMetrics.Phase indexPhase = metrics.begin("index");
+			writeIndex();
+			indexPhase.count("vertices", sbcSuper.vertexSet().size());
+			indexPhase.end();
+		}
 
 		/*
 		 * Add annotations for disjointness.
 		 */
 
+		final RunMetrics.Phase disjointnessPhase = metrics.begin("disjointness");
 		djClass.edgeSet().forEach(e -> {
 			final String es = djClass.getEdgeSource(e);
 			final String et = djClass.getEdgeTarget(e);
-			final Concept dj1 = concepts.get(es);
-			final Concept dj2 = concepts.get(et);
-			if (dj2 != null) {
-				final Vocabulary dj1Vocab = dj1.getOwningVocabulary();
-				final String dj1Prefix = dj1Vocab.getPrefix();
-				final Vocabulary dj2Vocab = dj2.getOwningVocabulary();
-				final String dj2Prefix = dj2Vocab.getPrefix();
-				
-				logger.info("concept " + dj1Prefix + ":" + dj1.getName() + " disjoint from " + dj2Prefix + ":" + dj2.getName());
-
-				final String dj2Name = (dj1Prefix == dj2Prefix ? "" : dj2Prefix + ":") + dnByConcept.get(dj2);
-				omlBuilder.addAnnotation(dj1Vocab, dj1.getIri(), "http://www.w3.org/2000/01/rdf-schema#comment",
-						omlBuilder.createLiteral("disjoint from " + dj2Name));				
-			}
+			if (!samePartition(es, et) && addDisjointness(es, et)) disjointnessPhase.count("annotations", 1);
 		});
+		disjointnessPhase.end();
 		
 		/*
 		 * Create optional vocabulary bundle.
 		 */
 		
 		if (bundleStem != null) {
-			final String core = outputPath + "/" + "omg.org/SysML-v2" + "/" + bundleStem;
-			final String bundlePath = core + ".omlxmi";
-			final URI bundleUri = URI.createFileURI(bundlePath);
-			final String bundleNamespace = "http:/" + ("/" + core.replaceAll(outputPath, "")).replaceAll("\\/+", "/") + "#";
-			final VocabularyBundle vocabBundle = omlBuilder.createVocabularyBundle(bundleUri, bundleNamespace, bundleStem);
-			outputResourceUris.add(bundleUri);
-			
-			vocabularies.forEach((iri, vocab) -> {
-				final Import vocabImport = oml.createImport();
-				vocabImport.setKind(ImportKind.INCLUSION);
-				vocabImport.setNamespace(vocab.getNamespace());
-				vocabImport.setOwningOntology(vocabBundle);
-			});
+			final RunMetrics.Phase bundlePhase = metrics.begin("bundle");
+			createBundle();
+			bundlePhase.count("vocabularies", vocabularies.size());
+			bundlePhase.end();
 		
 			/*
 			 * Crate optional vocabulary of all pairwise intersections.
 			 */
 			
 			if (pairsStem != null) {
+				final RunMetrics.Phase pairsPhase = metrics.begin("pairs");
 				final String pairsCore = outputPath + "/" + "omg.org/SysML-v2" + "/" + pairsStem;
 				final String pairsPath = pairsCore + ".omlxmi";
 				final URI pairsUri = URI.createFileURI(pairsPath);
@@ -533,22 +389,31 @@ public class Taxonomy2Oml {
 				logger.info(es.size() + " pairs edges");
 				logger.info(cn.size() + " vertex combinations");
 				
-				final Map<String, Set<String>> anc = new HashMap<>();
-				final Map<Set<String>, Boolean> dj = new HashMap<>();
+				/*
+				 * Evaluate pairs, bringing the closure saved by a previous run up to date if there
+				 * is one.
+				 */
 				
-				vs.forEach(v -> {
-					final Set<String> sc = sbcSuper.getAncestors(v);		// self + subclasses
-					sc.add(v);
-					anc.put(v, sc);
-				});
-					
-				cn.forEach(pair -> {
-					final Object[] pairArray = pair.toArray();
-					dj.put(pair, Sets.intersection(anc.get(pairArray[0]), anc.get(pairArray[1])).isEmpty());
-				});
-				logger.info(dj.values().stream().filter(v -> v).toList().size() + " unsats");
+				final PairClosure previous = closureCachePath != null ? PairClosure.read(closureCachePath) : null;
+				if (closureCachePath != null && previous == null) logger.info("no usable pair closure in " + closureCachePath);
+				final PairClosure closure = PairClosure.compute(sbcSuper, previous);
+				if (closureCachePath != null) {
+					closure.write(closureCachePath);
+					logger.info("wrote pair closure " + closureCachePath);
+				}
+				final long unsats = closure.unsatCount();
+				logger.info(unsats + " unsats");
+				logger.info(String.format("%d affected vertices, %d pairs recomputed, %d changed", closure.affectedVertices,
+						closure.recomputedPairs, closure.changedPairs));
+				pairsPhase.count("vertices", vs.size());
+				pairsPhase.count("combinations", cn.size());
+				pairsPhase.count("unsats", unsats);
+				pairsPhase.count("affectedVertices", closure.affectedVertices);
+				pairsPhase.count("recomputedPairs", closure.recomputedPairs);
+				pairsPhase.count("changedPairs", closure.changedPairs);
 				
 				cn.stream().limit(100000).collect(Collectors.toSet()).forEach(pair -> {
+					final String[] pairArray = pair.toArray(new String[2]);
 					final String pairSubclassName = Joiner.on("_")
 							.join(pair.stream()
 									.map(iri -> concepts.get(iri))
@@ -563,8 +428,10 @@ public class Taxonomy2Oml {
 					});
 					
 					omlBuilder.addAnnotation(pairsVocab, pairSubclass.getIri(), "http://www.w3.org/2000/01/rdf-schema#comment",
-							omlBuilder.createLiteral(dj.get(pair) ? "unsatisfiable" : "satisfiable"));	
+							omlBuilder.createLiteral(closure.isUnsatisfiable(pairArray[0], pairArray[1]) ? "unsatisfiable" : "satisfiable"));	
+					pairsPhase.count("pairConcepts", 1);
 				});
+				pairsPhase.end();
 			}
 			
 		}
@@ -573,22 +440,862 @@ public class Taxonomy2Oml {
 		 * Write output OML files.
 		 */
 		
+		final RunMetrics.Phase savePhase = metrics.begin("save");
 		logger.info("finish builder");
 		omlBuilder.finish();
 		
 		logger.info("save resources");
 		outputResourceUris.forEach(outputResourceUri -> {
-			logger.info("save " + outputResourceUri.toString());
-			final Resource outputResource = outputResourceSet.getResource(outputResourceUri, false);
+			if (saveResource(outputResourceUri)) savePhase.count("resources", 1);
+		});
+		savePhase.end();
+		
+		/*
+		 * Write optional metrics report.
+		 */
+		
+		metrics.getPhases().forEach(phase -> logger.info("phase " + phase));
+		if (metricsPath != null) metrics.write(metricsPath);
+		
+		logger.info("done");
+	}
+	
+	/**
+	 * Parses an XMI document and caches its library package, IRI, output filename and catalog
+	 * entry. Returns the IRI.
+	 */
+	protected URI loadDocument(Path inputPath, Path filePath) {
+		logger.info("document file path {}", filePath);
+		final Node topPackage = parseDocument(filePath);
+		if (topPackage == null) throw(new RuntimeException());
+		return cacheDocument(inputPath, filePath, topPackage);
+	}
+	
+	/**
+	 * Parses an XMI document and returns its library package, or null if the document cannot be
+	 * parsed or has no library package. Nothing is cached.
+	 */
+	protected Node parseDocument(Path filePath) {
+		
+		/*
+		 * Parse XMI document.
+		 */
+		
+		final DocumentParseEvent parseEvent = new DocumentParseEvent();
+		parseEvent.begin();
+		final Document doc;
+		try (FileInputStream inputStream = new FileInputStream(filePath.toString())) {
+			doc = documentBuilder.parse(inputStream);
+			doc.getDocumentElement().normalize();
+		} catch (SAXException | IOException e) {
+			logger.error("cannot parse " + filePath + ": " + e.getMessage());
+			return null;
+		}
+		try {
+			
+			/*
+			 * Find Library Package.
+			 */
+			
+			final NodeList topNodes = (NodeList) topPackageXPath.evaluate(doc, XPathConstants.NODESET);
+			if (topNodes.getLength() == 0 || topNodes.item(0).getAttributes().getNamedItem("declaredName") == null) {
+				logger.error("no library package found for " + filePath);
+				return null;
+			}
+			final Node topPackage = topNodes.item(0);
+			if (parseEvent.shouldCommit()) {
+				parseEvent.file = filePath.toString();
+				parseEvent.packageName = topPackage.getAttributes().getNamedItem("declaredName").getNodeValue();
+				parseEvent.fileSize = filePath.toFile().length();
+				parseEvent.commit();
+			}
+			return topPackage;
+		} catch (XPathExpressionException e) {
+			// TODO Auto-generated catch block
+			e.printStackTrace();
+		}
+		return null;
+	}
+	
+	/**
+	 * Caches a parsed library package with its IRI, output filename and catalog entry. Returns
+	 * the IRI.
+	 */
+	protected URI cacheDocument(Path inputPath, Path filePath, Node topPackage) {
+		final String dirName = filePath.getParent().toString();
+		
+		/*
+		 * Construct vocabulary IRI and cache it.
+		 */
+		
+		final String declaredName = topPackage.getAttributes().getNamedItem("declaredName").getNodeValue();
+		final URI iri = makeIri(dirName, declaredName);
+		iriByDeclName.put(declaredName, iri);
+		logger.info("  document iri {}", iri);
+		
+		/*
+		 * Construct output filename and cache it.
+		 */
+		
+		final String fn = makeOutputFn(outputPath, inputPath, filePath);
+		logger.info("  output file path {}", fn);
+		outputFn.put(iri, fn);
+		
+		/*
+		 * Cache document by IRI.
+		 */
+		
+		packages.put(iri, topPackage);
+		iriByFile.put(filePath, iri);
+		
+		/*
+		 * Create catalog entry for this document.
+		 */
+		
+		catalogMap.put(makeCatalogStartString(inputPath, filePath), makeCatalogRewritePrefix(inputPath, filePath));
+		
+		return iri;
+	}
+	
+	protected ResourceSet createResourceSet() {
+		final ResourceSet resourceSet = new ResourceSetImpl();
+		resourceSet.getLoadOptions().put(OmlConstants.RESOLVE_IRI_USING_RESOURCE_SET, true);
+		resourceSet.eAdapters().add(new ECrossReferenceAdapter());
+		return resourceSet;
+	}
+	
+	/**
+	 * Loads the core vocabularies into a resource set. Returns the number loaded.
+	 */
+	protected int loadCoreVocabularies(ResourceSet resourceSet) {
+		final Pattern omlPattern = Pattern.compile(".*\\.oml");
+		final int[] n = { 0 };
+		try {
+			final Path vocabsPath = Paths.get(coreVocabsPath);
+			Files.walk(vocabsPath)
+			.filter(Files::isRegularFile)
+            .filter(p -> omlPattern.matcher(p.getFileName().toString()).matches())
+			.forEach(filePath -> {
+				logger.info("core vocabulary file path {}", filePath);
+				final URI ontologyUri = URI.createFileURI(filePath.toAbsolutePath().toString());
+				OmlRead.getOntology(resourceSet.getResource(ontologyUri, true));
+				n[0]++;
+			});
+		} catch (IOException e) {
+			// TODO Auto-generated catch block
+			e.printStackTrace();
+		}
+		return n[0];
+	}
+	
+	/**
+	 * Builds vocabularies and concepts in {@link #threads} partitions concurrently, then moves
+	 * them into the output resource set. Each vocabulary belongs to one partition, which has
+	 * its own resource set and builder and also adds the specializations and disjointnesses
+	 * whose ends both lie in it. The rest are left to the serial passes that follow. Allocation
+	 * on the worker threads is added to the given phase.
+	 */
+	protected void buildPartitions(RunMetrics.Phase phase) {
+		
+		/*
+		 * Assign vocabularies to partitions, largest first to the least loaded.
+		 */
+		
+		final Map<URI, List<String>> idsByIri = new HashMap<>();
+		packages.keySet().forEach(iri -> idsByIri.put(iri, new ArrayList<>()));
+		sbcById.forEach((id, c) -> idsByIri.get(URI.createURI(c.get("iri"))).add(id));
+		
+		final List<VocabularyPartition> partitions = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			final ResourceSet resourceSet = createResourceSet();
+			loadCoreVocabularies(resourceSet);
+			partitions.add(new VocabularyPartition(i, resourceSet));
+		}
+		final List<URI> bySize = new ArrayList<>(idsByIri.keySet());
+		bySize.sort(Comparator.comparingInt((URI iri) -> idsByIri.get(iri).size()).reversed());
+		final Map<URI, VocabularyPartition> partitionByIri = new HashMap<>();
+		bySize.forEach(iri -> {
+			final VocabularyPartition p = Collections.min(partitions, Comparator.comparingLong(q -> q.size));
+			p.size += idsByIri.get(iri).size() + 1;
+			partitionByIri.put(iri, p);
+		});
+		packages.keySet().forEach(iri -> {
+			final VocabularyPartition p = partitionByIri.get(iri);
+			p.iris.add(iri);
+			p.ids.addAll(idsByIri.get(iri));
+			idsByIri.get(iri).forEach(id -> partitionById.put(id, p.index));
+		});
+		
+		/*
+		 * Build partitions.
+		 */
+		
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			final List<Callable<VocabularyPartition>> tasks = new ArrayList<>();
+			partitions.forEach(p -> tasks.add(phase.measured(() -> buildPartition(p))));
+			for (Future<VocabularyPartition> f : executor.invokeAll(tasks)) {
+				f.get();
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException(e);
+		} finally {
+			executor.shutdown();
+		}
+		
+		/*
+		 * Move vocabularies into the output resource set.
+		 */
+		
+		partitions.forEach(p -> {
+			p.resourceSet.eAdapters().clear();
+			p.vocabularies.forEach((iri, v) -> {
+				outputResourceUris.add(URI.createFileURI(outputFn.get(iri)));
+				outputResourceSet.getResources().add(v.eResource());
+			});
+			vocabularies.putAll(p.vocabularies);
+			concepts.putAll(p.concepts);
+			dnByConcept.putAll(p.dnByConcept);
+			qNameByConcept.putAll(p.qNameByConcept);
+			imported.putAll(p.imported);
+			phase.count("specializations", p.specializations);
+			phase.count("disjointnessAnnotations", p.disjointnessAnnotations);
+		});
+		
+		/*
+		 * Moved vocabularies still refer to their partition's copy of the core vocabularies.
+		 * Unloading that copy turns the references into proxies, which then resolve against the
+		 * output resource set's copy.
+		 */
+		
+		partitions.forEach(p -> p.resourceSet.getResources().forEach(Resource::unload));
+		vocabularies.values().forEach(v -> EcoreUtil.resolveAll(v.eResource()));
+	}
+	
+	protected VocabularyPartition buildPartition(VocabularyPartition p) {
+		p.omlBuilder.start();
+		p.iris.forEach(iri -> p.vocabularies.put(iri, createVocabulary(p.omlBuilder, iri)));
+		p.ids.forEach(id -> addConcept(p.vocabularies, id, sbcById.get(id), p.omlBuilder, p.concepts, p.dnByConcept, p.qNameByConcept, logger));
+		p.ids.forEach(id -> {
+			sbcSuper.outgoingEdgesOf(id).forEach(e -> {
+				final String et = sbcSuper.getEdgeTarget(e);
+				if (samePartition(id, et)) {
+					addSpecialization(p.concepts, id, et, p.omlBuilder, p.dnByConcept, p.qNameByConcept, logger, p.imported, false);
+					p.specializations++;
+				}
+			});
+			djClass.outgoingEdgesOf(id).forEach(e -> {
+				final String et = djClass.getEdgeTarget(e);
+				if (samePartition(id, et) && addDisjointness(p.concepts, id, et, p.omlBuilder, p.dnByConcept, p.qNameByConcept, logger)) {
+					p.disjointnessAnnotations++;
+				}
+			});
+		});
+		p.omlBuilder.finish();
+		logger.info(String.format("built partition %d of %d vocabularies and %d concepts", p.index, p.vocabularies.size(), p.concepts.size()));
+		return p;
+	}
+	
+	protected boolean samePartition(String es, String et) {
+		final Integer p = partitionById.get(es);
+		return p != null && p.equals(partitionById.get(et));
+	}
+	
+	protected void createVocabulary(URI iri) {
+		outputResourceUris.add(URI.createFileURI(outputFn.get(iri)));
+		vocabularies.put(iri, createVocabulary(omlBuilder, iri));
+	}
+	
+	protected Vocabulary createVocabulary(OmlBuilder omlBuilder, URI iri) {
+		final URI uri = URI.createFileURI(outputFn.get(iri));
+		final String namespace = iri.toString() + "#";
+		final Vocabulary v = omlBuilder.createVocabulary(uri, namespace, Paths.get(iri.toString()).getFileName().toString().toLowerCase());
+		
+		final Import rdfsImport = oml.createImport();
+		rdfsImport.setKind(ImportKind.EXTENSION);
+		rdfsImport.setNamespace("http://www.w3.org/2000/01/rdf-schema#");
+		rdfsImport.setPrefix("rdfs");
+		rdfsImport.setOwningOntology(v);
+		return v;
+	}
+	
+	protected void addConcept(String id, Map<String, String> c) {
+		addConcept(vocabularies, id, c, omlBuilder, concepts, dnByConcept, qNameByConcept, logger);
+	}
+	
+	private static void addConcept(Map<URI, Vocabulary> vocabularies, String id, Map<String, String> c, OmlBuilder omlBuilder,
+			Map<String, Concept> concepts, Map<Concept, String> dnByConcept, Map<Concept, String> qNameByConcept, Logger logger) {
+		final Vocabulary v = vocabularies.get(URI.createURI(c.get("iri")));
+		final String dn = c.get("name");
+		final String cName = cleanIdentifier(dn);
+		final Literal cLiteral = omlBuilder.createLiteral(dn);
+		final Concept concept = omlBuilder.addConcept(v, cName);
+		concepts.put(id, concept);
+		if (logger.isDebugEnabled()) logger.debug("concept {} label {} id {}", cName, dn, id);
+		omlBuilder.addAnnotation(v, concept.getIri(), "http://www.w3.org/2000/01/rdf-schema#label", cLiteral);
+		dnByConcept.put(concept, dn);
+		qNameByConcept.put(concept, v.getPrefix() + ":" + dn);
+	}
+	
+	/**
+	 * Merges implicit specializations into the explicit specialization graph. Edges already
+	 * present, edges whose ends are not (or no longer) extracted, and edges that would close a
+	 * cycle are skipped. Merged edges
+	 * are remembered in {@link #implicitEdges}, so that an update can drop them when they no
+	 * longer follow.
+	 */
+	protected void mergeImplicitEdges() {
+		sbcImplicit.edgeSet().forEach(e -> {
+			final String es = idByName.get(sbcImplicit.getEdgeSource(e));
+			final String et = idByName.get(sbcImplicit.getEdgeTarget(e));
+			if (es == null || et == null) return;
 			try {
-				outputResource.save(Collections.EMPTY_MAP);
-			} catch (IOException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
+				final DefaultEdge added = sbcSuper.addEdge(es, et);
+				if (added != null) implicitEdges.add(added);
+			} catch (IllegalArgumentException ex) {
+				logger.error("skipped implicit specialization " + es + " :> " + et + ": " + ex.getMessage());
 			}
 		});
+	}
+	
+	/**
+	 * Annotates the source concept of a disjoining. Returns true if the target is a concept.
+	 */
+	protected boolean addDisjointness(String es, String et) {
+		return addDisjointness(concepts, es, et, omlBuilder, dnByConcept, qNameByConcept, logger);
+	}
+	
+	private static boolean addDisjointness(Map<String, Concept> concepts, String es, String et, OmlBuilder omlBuilder,
+			Map<Concept, String> dnByConcept, Map<Concept, String> qNameByConcept, Logger logger) {
+		final Concept dj1 = concepts.get(es);
+		final Concept dj2 = concepts.get(et);
+		if (dj2 == null) return false;
 		
-		logger.info("done");
+		final Vocabulary dj1Vocab = dj1.getOwningVocabulary();
+		final String dj1Prefix = dj1Vocab.getPrefix();
+		final Vocabulary dj2Vocab = dj2.getOwningVocabulary();
+		final String dj2Prefix = dj2Vocab.getPrefix();
+		
+		if (logger.isDebugEnabled()) logger.debug("concept {} disjoint from {}", qNameByConcept.get(dj1), qNameByConcept.get(dj2));
+
+		final String dj2Name = (dj1Prefix == dj2Prefix ? "" : dj2Prefix + ":") + dnByConcept.get(dj2);
+		omlBuilder.addAnnotation(dj1Vocab, dj1.getIri(), "http://www.w3.org/2000/01/rdf-schema#comment",
+				omlBuilder.createLiteral("disjoint from " + dj2Name));
+		return true;
+	}
+	
+	protected void createBundle() {
+		final String core = outputPath + "/" + "omg.org/SysML-v2" + "/" + bundleStem;
+		final String bundlePath = core + ".omlxmi";
+		bundleUri = URI.createFileURI(bundlePath);
+		final String bundleNamespace = "http:/" + ("/" + core.replaceAll(outputPath, "")).replaceAll("\\/+", "/") + "#";
+		final VocabularyBundle vocabBundle = omlBuilder.createVocabularyBundle(bundleUri, bundleNamespace, bundleStem);
+		outputResourceUris.add(bundleUri);
+		
+		vocabularies.forEach((iri, vocab) -> {
+			final Import vocabImport = oml.createImport();
+			vocabImport.setKind(ImportKind.INCLUSION);
+			vocabImport.setNamespace(vocab.getNamespace());
+			vocabImport.setOwningOntology(vocabBundle);
+		});
+	}
+	
+	protected void writeEdgelist() throws IOException {
+		final CSVWriter edgelistWriter = new CSVWriter(new FileWriter(edgelistPath));
+		sbcSuper.edgeSet().forEach(e -> {
+			final Concept subC = concepts.get(sbcSuper.getEdgeSource(e));
+			final Concept supC = concepts.get(sbcSuper.getEdgeTarget(e));
+			if (subC != null && supC != null) {
+				final String[] row = { qNameByConcept.get(supC), qNameByConcept.get(subC) };
+				edgelistWriter.writeNext(row);
+			}
+		});
+		edgelistWriter.close();
+	}
+	
+	protected void writeIndex() throws IOException {
+		final Map<String, String> nameById = new HashMap<>();
+		concepts.forEach((id, concept) -> nameById.put(id, qNameByConcept.get(concept)));
+		TaxonomyIndex.write(indexPath, sbcSuper, djClass, nameById);
+		logger.info("wrote taxonomy index " + indexPath);
+	}
+	
+	/**
+	 * Saves an output resource. Returns true if it was saved.
+	 */
+	protected boolean saveResource(URI outputResourceUri) {
+		logger.info("save " + outputResourceUri.toString());
+		final Resource outputResource = outputResourceSet.getResource(outputResourceUri, false);
+		final ResourceSaveEvent saveEvent = new ResourceSaveEvent();
+		saveEvent.begin();
+		try {
+			outputResource.save(Collections.EMPTY_MAP);
+			if (saveEvent.shouldCommit()) {
+				saveEvent.uri = outputResourceUri.toString();
+				saveEvent.fileSize = new File(outputResourceUri.toFileString()).length();
+				saveEvent.commit();
+			}
+			return true;
+		} catch (IOException e) {
+			// TODO Auto-generated catch block
+			e.printStackTrace();
+		}
+		return false;
+	}
+	
+	/**
+	 * Watches the input paths after a {@link #run()} and reconverts library files as they
+	 * change, until interrupted. Events are collected until the input paths have been quiet for
+	 * {@link #watchDebounceMillis}, then handled as one update.
+	 */
+	public void watch() throws IOException, InterruptedException {
+		final WatchService watchService = FileSystems.getDefault().newWatchService();
+		final Map<WatchKey, Path> dirByKey = new HashMap<>();
+		final Map<Path, Path> inputPathByDir = new HashMap<>();
+		for (String pathString : inputPaths) {
+			final Path inputPath = Paths.get(pathString);
+			registerTree(watchService, inputPath, inputPath, dirByKey, inputPathByDir);
+		}
+		logger.info(String.format("watching %d directories", dirByKey.size()));
+		if (pairsStem != null) logger.warn("pairs vocabulary is not refreshed in watch mode");
+		
+		while (true) {
+			final Map<Path, Path> changed = new LinkedHashMap<>();
+			WatchKey key = watchService.take();
+			while (key != null) {
+				final Path dir = dirByKey.get(key);
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						
+						/*
+						 * Events were lost; treat every known and present file as changed.
+						 */
+						
+						logger.warn("watch events lost; rescanning input paths");
+						for (Path filePath : iriByFile.keySet()) {
+							changed.put(filePath, inputPathByDir.get(filePath.getParent()));
+						}
+						for (Map.Entry<Path, Path> entry : inputPathByDir.entrySet()) {
+							addDocuments(entry.getKey(), entry.getValue(), changed);
+						}
+						continue;
+					}
+					final Path path = dir.resolve((Path) event.context());
+					final Path inputPath = inputPathByDir.get(dir);
+					if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+						registerTree(watchService, inputPath, path, dirByKey, inputPathByDir);
+						addDocuments(path, inputPath, changed);
+					} else if (xmiPattern.matcher(path.getFileName().toString()).matches()) {
+						changed.put(path, inputPath);
+					} else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+						forgetDocuments(path, changed, inputPathByDir);
+					}
+				}
+				if (!key.reset()) {
+					
+					/*
+					 * The directory was deleted or renamed away; files under a new name
+					 * arrive as created.
+					 */
+					
+					dirByKey.remove(key);
+					forgetDocuments(dir, changed, inputPathByDir);
+				}
+				key = watchService.poll(watchDebounceMillis, TimeUnit.MILLISECONDS);
+			}
+			if (!changed.isEmpty()) update(changed);
+		}
+	}
+	
+	private void registerTree(WatchService watchService, Path inputPath, Path root, Map<WatchKey, Path> dirByKey,
+			Map<Path, Path> inputPathByDir) throws IOException {
+		final List<Path> dirs = Files.walk(root).filter(Files::isDirectory).collect(Collectors.toList());
+		for (Path dir : dirs) {
+			final WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+			dirByKey.put(key, dir);
+			inputPathByDir.put(dir, inputPath);
+		}
+	}
+	
+	private void addDocuments(Path dir, Path inputPath, Map<Path, Path> changed) throws IOException {
+		if (!Files.isDirectory(dir)) return;
+		Files.walk(dir)
+		.filter(Files::isRegularFile)
+		.filter(p -> xmiPattern.matcher(p.getFileName().toString()).matches())
+		.forEach(p -> changed.put(p, inputPath));
+	}
+	
+	/**
+	 * Marks every known document under a deleted or renamed directory as changed, and stops
+	 * tracking the directories under it.
+	 */
+	private void forgetDocuments(Path dir, Map<Path, Path> changed, Map<Path, Path> inputPathByDir) {
+		iriByFile.keySet().stream()
+		.filter(p -> p.startsWith(dir))
+		.forEach(p -> changed.put(p, inputPathByDir.get(p.getParent())));
+		inputPathByDir.keySet().removeIf(p -> p.startsWith(dir) && !Files.isDirectory(p));
+	}
+	
+	/**
+	 * Reconverts changed library files, given as a map from file path to input path. Only the
+	 * vocabularies of changed packages are rebuilt, plus those whose specializations or
+	 * disjointnesses refer to a concept that was added, removed or renamed. Other vocabularies
+	 * keep their references to rebuilt concepts, which resolve by IRI.
+	 */
+	protected void update(Map<Path, Path> changed) throws IOException {
+		final long t0 = System.nanoTime();
+		
+		/*
+		 * Parse changed documents before touching resident state, so that a document that cannot
+		 * be parsed, such as one still being written, leaves its previous package in place.
+		 * Deleted documents are only forgotten.
+		 */
+		
+		final Map<Path, Node> parsed = new LinkedHashMap<>();
+		changed.forEach((filePath, inputPath) -> {
+			if (!Files.isRegularFile(filePath)) {
+				parsed.put(filePath, null);
+				return;
+			}
+			final Node pkg = parseDocument(filePath);
+			if (pkg == null) {
+				logger.error("keeping previous version of " + filePath);
+			} else {
+				parsed.put(filePath, pkg);
+			}
+		});
+		final Set<URI> changedIris = new HashSet<>();
+		final Map<Path, URI> oldIriByFile = new HashMap<>();
+		final Map<URI, Node> oldPackages = new HashMap<>();
+		parsed.forEach((filePath, pkg) -> {
+			final URI oldIri = iriByFile.remove(filePath);
+			if (oldIri != null) {
+				changedIris.add(oldIri);
+				oldIriByFile.put(filePath, oldIri);
+				oldPackages.put(oldIri, packages.remove(oldIri));
+			}
+			if (pkg != null) changedIris.add(cacheDocument(changed.get(filePath), filePath, pkg));
+		});
+		if (changedIris.isEmpty()) return;
+		
+		/*
+		 * Drop taxonomy data extracted from changed packages, remembering each element's name and
+		 * package so that changed concept identities can be found below.
+		 */
+		
+		final Map<String, String> oldKeys = removeExtraction(changedIris);
+		
+		/*
+		 * Extract taxonomy data from changed packages. A package whose new version would make the
+		 * specialization graph cyclic is rolled back to its previous version, or dropped if it
+		 * has none or that no longer fits either.
+		 */
+		
+		parsed.keySet().forEach(filePath -> {
+			final URI iri = iriByFile.get(filePath);
+			if (iri == null || extractPackage(iri)) return;
+			packages.remove(iri);
+			iriByFile.remove(filePath);
+			final URI oldIri = oldIriByFile.get(filePath);
+			if (oldIri != null) {
+				packages.put(oldIri, oldPackages.get(oldIri));
+				iriByFile.put(filePath, oldIri);
+				if (extractPackage(oldIri)) {
+					logger.error("keeping previous version of " + filePath);
+					return;
+				}
+				packages.remove(oldIri);
+				iriByFile.remove(filePath);
+			}
+			logger.error("dropping " + filePath);
+		});
+		final boolean packagesChanged = !vocabularies.keySet().equals(packages.keySet());
+		
+		/*
+		 * Drop merged implicit specializations that no longer follow, such as those to a
+		 * supertype whose id changed, then merge the current ones.
+		 */
+		
+		final Set<String> implied = new HashSet<>();
+		sbcImplicit.edgeSet().forEach(e -> implied.add(idByName.get(sbcImplicit.getEdgeSource(e)) + " " + idByName.get(sbcImplicit.getEdgeTarget(e))));
+		final Set<String> implicitSources = new HashSet<>();
+		implicitEdges.removeIf(e -> {
+			if (!sbcSuper.containsEdge(e)) return true;
+			final String es = sbcSuper.getEdgeSource(e);
+			if (implied.contains(es + " " + sbcSuper.getEdgeTarget(e))) return false;
+			sbcSuper.removeEdge(e);
+			implicitSources.add(es);
+			return true;
+		});
+		mergeImplicitEdges();
+		
+		/*
+		 * Find affected vocabularies.
+		 */
+		
+		final Set<URI> affected = new HashSet<>(changedIris);
+		implicitSources.forEach(id -> affected.add(URI.createURI(sbcById.get(id).get("iri"))));
+		final Set<String> changedIds = new HashSet<>(oldKeys.keySet());
+		sbcById.forEach((id, c) -> {
+			if (changedIris.contains(URI.createURI(c.get("iri")))) {
+				if ((c.get("iri") + "#" + c.get("name")).equals(oldKeys.get(id))) {
+					changedIds.remove(id);
+				} else {
+					changedIds.add(id);
+				}
+			}
+		});
+		changedIds.forEach(id -> {
+			if (sbcSuper.containsVertex(id)) {
+				sbcSuper.incomingEdgesOf(id).forEach(e -> affected.add(URI.createURI(sbcById.get(sbcSuper.getEdgeSource(e)).get("iri"))));
+			}
+			if (djClass.containsVertex(id)) {
+				djClass.incomingEdgesOf(id).forEach(e -> affected.add(URI.createURI(sbcById.get(djClass.getEdgeSource(e)).get("iri"))));
+			}
+		});
+		
+		/*
+		 * Drop vertices that are neither candidates nor referenced any longer.
+		 */
+		
+		sbcSuper.removeAllVertices(sbcSuper.vertexSet().stream()
+				.filter(v -> !sbcById.containsKey(v) && sbcSuper.inDegreeOf(v) == 0).collect(Collectors.toList()));
+		djClass.removeAllVertices(djClass.vertexSet().stream()
+				.filter(v -> !sbcById.containsKey(v) && djClass.inDegreeOf(v) == 0).collect(Collectors.toList()));
+		sbcImplicit.removeAllVertices(sbcImplicit.vertexSet().stream()
+				.filter(v -> sbcImplicit.degreeOf(v) == 0).collect(Collectors.toList()));
+		
+		/*
+		 * Unload affected vocabularies and forget their concepts.
+		 */
+		
+		final Set<Vocabulary> stale = new HashSet<>();
+		affected.forEach(iri -> {
+			final Vocabulary v = vocabularies.remove(iri);
+			if (v != null) stale.add(v);
+		});
+		concepts.values().removeIf(c -> stale.contains(c.getOwningVocabulary()));
+		dnByConcept.keySet().removeIf(c -> stale.contains(c.getOwningVocabulary()));
+		qNameByConcept.keySet().removeIf(c -> stale.contains(c.getOwningVocabulary()));
+		stale.forEach(v -> {
+			imported.remove(v);
+			final Resource resource = v.eResource();
+			resource.unload();
+			outputResourceSet.getResources().remove(resource);
+		});
+		
+		/*
+		 * Rebuild affected vocabularies.
+		 */
+		
+		startBuilder();
+		for (URI iri : affected) {
+			if (!packages.containsKey(iri) && outputFn.containsKey(iri)) {
+				final String fn = outputFn.remove(iri);
+				outputResourceUris.remove(URI.createFileURI(fn));
+				Files.deleteIfExists(Paths.get(fn));
+				logger.info("deleted " + fn);
+			}
+		}
+		final Set<URI> rebuilt = new HashSet<>();
+		for (URI iri : affected) {
+			if (packages.containsKey(iri)) {
+				createVocabulary(iri);
+				rebuilt.add(URI.createFileURI(outputFn.get(iri)));
+			}
+		}
+		sbcById.forEach((id, c) -> {
+			if (affected.contains(URI.createURI(c.get("iri")))) addConcept(id, c);
+		});
+		sbcSuper.edgeSet().forEach(e -> {
+			final String es = sbcSuper.getEdgeSource(e);
+			if (affected.contains(URI.createURI(sbcById.get(es).get("iri")))) {
+				addSpecialization(concepts, es, sbcSuper.getEdgeTarget(e), omlBuilder, dnByConcept, qNameByConcept, logger, imported, false);
+			}
+		});
+		djClass.edgeSet().forEach(e -> {
+			final String es = djClass.getEdgeSource(e);
+			if (affected.contains(URI.createURI(sbcById.get(es).get("iri")))) addDisjointness(es, djClass.getEdgeTarget(e));
+		});
+		if (bundleStem != null && packagesChanged) {
+			final Resource bundleResource = outputResourceSet.getResource(bundleUri, false);
+			bundleResource.unload();
+			outputResourceSet.getResources().remove(bundleResource);
+			createBundle();
+			rebuilt.add(bundleUri);
+		}
+		finishBuilder();
+		
+		/*
+		 * Save rebuilt resources and refresh derived outputs.
+		 */
+		
+		rebuilt.forEach(uri -> saveResource(uri));
+		if (packagesChanged && catalogPath != null) createOutputCatalog(catalogPath, catalogMap);
+		if (edgelistPath != null) writeEdgelist();
+		if (indexPath != null) writeIndex();
+		
+		logger.info(String.format("updated %d of %d vocabularies from %d changed files in %d ms", rebuilt.size(),
+				vocabularies.size(), changed.size(), (System.nanoTime() - t0) / 1000000));
+	}
+	
+	/**
+	 * Starts the builder for rebuilding vocabularies in an update.
+	 */
+	protected void startBuilder() {
+		omlBuilder.start();
+	}
+	
+	/**
+	 * Finishes the builder after rebuilding vocabularies in an update, resolving the references
+	 * it deferred.
+	 */
+	protected void finishBuilder() {
+		omlBuilder.finish();
+	}
+	
+	/**
+	 * Removes the taxonomy data extracted from the given packages: their candidates, the edges
+	 * leaving them and their implicit specializations. Returns the name and package of each
+	 * removed candidate, keyed by id.
+	 */
+	private Map<String, String> removeExtraction(Set<URI> iris) {
+		final Map<String, String> removed = new HashMap<>();
+		sbcById.forEach((id, c) -> {
+			if (iris.contains(URI.createURI(c.get("iri")))) removed.put(id, c.get("iri") + "#" + c.get("name"));
+		});
+		removed.keySet().forEach(id -> {
+			idByDn.remove(sbcById.remove(id).get("name"), id);
+			sbcSuper.removeAllEdges(new HashSet<>(sbcSuper.outgoingEdgesOf(id)));
+			if (djClass.containsVertex(id)) djClass.removeAllEdges(new HashSet<>(djClass.outgoingEdgesOf(id)));
+		});
+		idByName.entrySet().removeIf(e -> {
+			if (!removed.containsKey(e.getValue())) return false;
+			if (sbcImplicit.containsVertex(e.getKey())) {
+				sbcImplicit.removeAllEdges(new HashSet<>(sbcImplicit.outgoingEdgesOf(e.getKey())));
+			}
+			return true;
+		});
+		return removed;
+	}
+	
+	/**
+	 * Extracts a cached package. If its specializations would make the graph cyclic, whatever
+	 * was extracted before that is removed again and false is returned.
+	 */
+	private boolean extractPackage(URI iri) {
+		try {
+			processPackage(iri, packages.get(iri));
+			return true;
+		} catch (IllegalArgumentException e) {
+			logger.error("rejected " + iri + ": " + e.getMessage());
+			removeExtraction(Collections.singleton(iri));
+			return false;
+		}
+	}
+	
+	protected void compileXPaths() throws XPathExpressionException {
+		final XPath xPath = XPathFactory.newInstance().newXPath();
+		topPackageXPath = xPath.compile("Namespace/ownedRelationship[@type='sysml:OwningMembership']/ownedRelatedElement[@type='sysml:LibraryPackage']");
+	}
+	
+	/**
+	 * Extracts candidate elements and their specialization and disjoining relations from a
+	 * library package into the taxonomy graphs.
+	 * 
+	 * Owned members and relations are found by walking child nodes rather than by XPath, since
+	 * each XPath evaluation against a DOM node wraps the whole document anew. Per-element
+	 * logging is at debug level and guarded, so that no message is built when it is disabled.
+	 */
+	protected void processPackage(URI iri, Node pkg) {
+		final PackageExtractionEvent extractionEvent = new PackageExtractionEvent();
+		extractionEvent.begin();
+		int candidates = 0;
+		int specializations = 0;
+		int disjoinings = 0;
+		final Node packageNameNode = pkg.getAttributes().getNamedItem("declaredName");
+		final String packageName = packageNameNode.getNodeValue();
+		final String iriString = iri.toString();
+		
+		/*
+		 * Find elements that will become concepts.
+		 */
+		
+		final List<Node> sbcs = relatedElements(pkg, "sysml:OwningMembership", "ownedRelatedElement");
+		for (Node sbc : sbcs) {
+			final NamedNodeMap sbcAttributes = sbc.getAttributes();
+			
+			final Node dnNode = sbcAttributes.getNamedItem("declaredName");
+			if (dnNode == null) continue;
+			final String dn = dnNode.getNodeValue();
+			
+			final Node tpNode = sbcAttributes.getNamedItem("xsi:type");
+			final String tp = tpNode.getNodeValue();
+			if (!metaclasses.contains(tp)) continue;
+			
+			final Node idNode = sbcAttributes.getNamedItem("elementId");
+			final String id = idNode.getNodeValue();
+			final String qName = packageName + ":" + dn;
+			final Map<String, String> m = new HashMap<>();
+			m.put("name", dn);
+			m.put("iri", iriString);
+			sbcById.put(id, m);
+			idByDn.put(dn, id);
+			idByName.put(qName, id);
+			sbcSuper.addVertex(id);
+			djClass.addVertex(id);
+			candidates++;
+			if (logger.isDebugEnabled()) logger.debug("candidate {} type {} vocab-iri {} id {}", dn, tp, iriString, id);
+
+			/*
+			 * Find  superclass relations.
+			 */
+			
+			for (String supId : relatedIds(sbc, "sysml:Subclassification", "superclassifier")) {
+				sbcSuper.addVertex(supId);
+				sbcSuper.addEdge(id, supId);
+				specializations++;
+				if (logger.isDebugEnabled()) logger.debug("specialization {} :> {}", id, supId);
+			}
+			
+			/*
+			 * Add implicit superclass relations.
+			 */
+
+			if (sbcSuper.outDegreeOf(id) == 0) {
+				if (logger.isDebugEnabled()) logger.debug("tp {}", tp);
+				final String spcType = stMap.get(tp);
+				if (spcType != null) {
+		            if (logger.isDebugEnabled()) logger.debug("implicit edge {} :> {}", qName, spcType);
+		            sbcImplicit.addVertex(qName);
+		            sbcImplicit.addVertex(spcType);
+					sbcImplicit.addEdge(qName, spcType);
+				}
+			}
+			
+			/*
+			 * Find  disjoining relations.
+			 */
+			
+			for (String djId : relatedIds(sbc, "sysml:Disjoining", "disjoiningType")) {
+				djClass.addVertex(djId);
+				djClass.addEdge(id, djId);
+				disjoinings++;
+				if (logger.isDebugEnabled()) logger.debug("disjoining {} {}", id, djId);
+			}
+
+		}
+		
+		if (extractionEvent.shouldCommit()) {
+			extractionEvent.packageName = packageName;
+			extractionEvent.iri = iriString;
+			extractionEvent.elements = sbcs.size();
+			extractionEvent.candidates = candidates;
+			extractionEvent.specializations = specializations;
+			extractionEvent.disjoinings = disjoinings;
+			extractionEvent.commit();
+		}
 	}
 	
 	private static Path trail(Path fp, Path sp) {
@@ -678,13 +1385,55 @@ public class Taxonomy2Oml {
 		}
 	}
 	
+	/**
+	 * Returns the child elements with the given name of the owned relationships of the given type.
+	 */
+	private static List<Node> relatedElements(Node owner, String relationshipType, String name) {
+		final List<Node> related = new ArrayList<>();
+		for (Node r = owner.getFirstChild(); r != null; r = r.getNextSibling()) {
+			if (!isRelationship(r, relationshipType)) continue;
+			for (Node e = r.getFirstChild(); e != null; e = e.getNextSibling()) {
+				if (e.getNodeType() == Node.ELEMENT_NODE && e.getNodeName().equals(name)) related.add(e);
+			}
+		}
+		return related;
+	}
+	
+	/**
+	 * Returns the ids of the targets of the owned relationships of the given type, whether given
+	 * in-file by attribute or cross-file by a child element href.
+	 */
+	private static List<String> relatedIds(Node owner, String relationshipType, String role) {
+		final List<String> ids = new ArrayList<>();
+		for (Node r = owner.getFirstChild(); r != null; r = r.getNextSibling()) {
+			if (!isRelationship(r, relationshipType)) continue;
+			final String target = ((Element) r).getAttribute(role);
+			if (!target.isEmpty()) ids.add(hrefId(target));
+			for (Node e = r.getFirstChild(); e != null; e = e.getNextSibling()) {
+				if (e.getNodeType() != Node.ELEMENT_NODE || !e.getNodeName().equals(role)) continue;
+				final String href = ((Element) e).getAttribute("href");
+				if (!href.isEmpty()) ids.add(hrefId(href));
+			}
+		}
+		return ids;
+	}
+	
+	private static boolean isRelationship(Node n, String type) {
+		return n.getNodeType() == Node.ELEMENT_NODE && n.getNodeName().equals("ownedRelationship")
+				&& ((Element) n).getAttribute("xsi:type").equals(type);
+	}
+	
+	private static String hrefId(String href) {
+		return href.substring(href.lastIndexOf('#') + 1);
+	}
+	
 	private static String cleanIdentifier(String id) {
 		return "Concept_" + Base58.base58Encode(id.getBytes());
 	}
 	
 	private static void addSpecialization(Map<String, Concept> concepts, String es, String et, OmlBuilder omlBuilder,
-			Map<Concept, String> dnByConcept, Logger logger, Map<Vocabulary, Set<Vocabulary>> imported, boolean implicit,
-			CSVWriter edgelistWriter) {
+			Map<Concept, String> dnByConcept, Map<Concept, String> qNameByConcept, Logger logger,
+			Map<Vocabulary, Set<Vocabulary>> imported, boolean implicit) {
 		final Concept subC = concepts.get(es);
 		final Concept supC = concepts.get(et);
 		if (supC != null) {
@@ -692,8 +1441,8 @@ public class Taxonomy2Oml {
 			final String subPrefix = subVocab.getPrefix();
 			final Vocabulary supVocab = supC.getOwningVocabulary();
 			final String supPrefix = supVocab.getPrefix();
-			final String subQName = subPrefix + ":" + dnByConcept.get(subC);
-			final String supQName = supPrefix + ":" + dnByConcept.get(supC);
+			final String subQName = qNameByConcept.get(subC);
+			final String supQName = qNameByConcept.get(supC);
 
 			omlBuilder.addSpecializationAxiom(subVocab, subC.getIri(), supC.getIri());
 
@@ -701,17 +1450,10 @@ public class Taxonomy2Oml {
 			omlBuilder.addAnnotation(subVocab, subC.getIri(), "http://www.w3.org/2000/01/rdf-schema#comment",
 					omlBuilder.createLiteral("specializes " + (implicit ? "(implicit) " : "") + superName));
 
-			if (edgelistWriter != null) {
-				final String[] row = { supQName, subQName };
-				edgelistWriter.writeNext(row);
-			}
-			
-			logger.info("concept " + subQName + " :> " + supQName);
+			if (logger.isDebugEnabled()) logger.debug("concept {} :> {}", subQName, supQName);
 
-			if (!imported.containsKey(subVocab)) imported.put(subVocab, new HashSet<Vocabulary>());
-			if (subVocab != supVocab && !imported.get(subVocab).contains(supVocab)) {
+			if (subVocab != supVocab && imported.computeIfAbsent(subVocab, k -> new HashSet<Vocabulary>()).add(supVocab)) {
 				omlBuilder.addImport(subVocab, ImportKind.EXTENSION, supVocab.getIri() + "#", supPrefix);
-				imported.get(subVocab).add(supVocab);
 			}
 		}
 	}
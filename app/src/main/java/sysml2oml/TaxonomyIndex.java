@@ -0,0 +1,377 @@
+package sysml2oml;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedAcyclicGraph;
+
+/**
+ * Compact binary form of the specialization and disjoining graphs with a precomputed
+ * reachability index, readable by memory mapping.
+ *
+ * Vertices are numbered in topological order, subtypes before supertypes, so a vertex can
+ * only specialize vertices with higher numbers. Each vertex carries the pre- and post-order
+ * numbers of a depth-first traversal from the roots down to their subtypes, and the lowest
+ * post-order number among its subtypes. Containment of the spanning-tree interval
+ * [pre, post] proves specialization; non-containment of [low, post] disproves it. Only pairs
+ * that neither label decides fall back to a pruned search upward.
+ *
+ * The file holds, as big-endian ints: a header of magic, version, vertex count n,
+ * specialization edge count m, disjoining entry count k, string pool size and lookup
+ * string count; offsets of 2n strings (element id and qualified name of each vertex, empty
+ * for vertices that are not concepts) into the pool; indices of the non-empty strings
+ * sorted by their UTF-8 bytes; supertype offsets and targets; disjoining offsets and
+ * targets, listed in both directions; the pre, post and low labels; then the string pool.
+ *
+ * Queries share scratch space and are not thread safe.
+ */
+public class TaxonomyIndex {
+
+	protected final static int magic = 0x53595458;		// "SYTX"
+	protected final static int version = 2;
+	protected final static int headerInts = 7;
+
+	protected final int n;
+	protected final IntBuffer stringOffsets;
+	protected final IntBuffer sortedStrings;
+	protected final IntBuffer supOffsets;
+	protected final IntBuffer sups;
+	protected final IntBuffer djOffsets;
+	protected final IntBuffer djs;
+	protected final IntBuffer pre;
+	protected final IntBuffer post;
+	protected final IntBuffer low;
+	protected final ByteBuffer pool;
+
+	private final int[] visited;
+	private final int[] stack;
+	private final int[] found;
+	private final int[] marked;
+	private int stamp = 0;
+
+	private TaxonomyIndex(ByteBuffer buffer) throws IOException {
+		final IntBuffer header = buffer.asIntBuffer();
+		if (header.get(0) != magic || header.get(1) != version) {
+			throw new IOException("not a taxonomy index");
+		}
+		n = header.get(2);
+		final int m = header.get(3);
+		final int k = header.get(4);
+		final int poolBytes = header.get(5);
+		final int lookups = header.get(6);
+
+		int at = headerInts * 4;
+		stringOffsets = slice(buffer, at, 2 * n + 1);
+		at += (2 * n + 1) * 4;
+		sortedStrings = slice(buffer, at, lookups);
+		at += lookups * 4;
+		supOffsets = slice(buffer, at, n + 1);
+		at += (n + 1) * 4;
+		sups = slice(buffer, at, m);
+		at += m * 4;
+		djOffsets = slice(buffer, at, n + 1);
+		at += (n + 1) * 4;
+		djs = slice(buffer, at, k);
+		at += k * 4;
+		pre = slice(buffer, at, n);
+		at += n * 4;
+		post = slice(buffer, at, n);
+		at += n * 4;
+		low = slice(buffer, at, n);
+		at += n * 4;
+		pool = buffer.duplicate().position(at).limit(at + poolBytes).slice();
+
+		visited = new int[n];
+		stack = new int[n];
+		found = new int[n];
+		marked = new int[n];
+	}
+
+	/**
+	 * Maps an index file written by {@link #write}.
+	 */
+	public static TaxonomyIndex open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return new TaxonomyIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	public int size() {
+		return n;
+	}
+
+	/**
+	 * Returns the vertex with the given element id or qualified name, or -1 if there is none.
+	 */
+	public int vertex(String name) {
+		final byte[] key = name.getBytes(StandardCharsets.UTF_8);
+		int lo = 0;
+		int hi = sortedStrings.limit() - 1;
+		while (lo <= hi) {
+			final int mid = (lo + hi) >>> 1;
+			final int s = sortedStrings.get(mid);
+			final int c = compare(s, key);
+			if (c < 0) lo = mid + 1;
+			else if (c > 0) hi = mid - 1;
+			else return s / 2;
+		}
+		return -1;
+	}
+
+	public String id(int v) {
+		return string(2 * v);
+	}
+
+	public String qualifiedName(int v) {
+		return string(2 * v + 1);
+	}
+
+	/**
+	 * Returns true if a is b or specializes b directly or indirectly.
+	 */
+	public boolean isSubtype(int a, int b) {
+		if (a == b) return true;
+		if (a > b || !mayReach(a, b)) return false;
+		if (pre.get(b) <= pre.get(a) && post.get(a) <= post.get(b)) return true;
+
+		/*
+		 * Search upward from a, pruning supertypes ordered after b or whose labels exclude b.
+		 */
+
+		stamp++;
+		int top = 0;
+		stack[top++] = a;
+		visited[a] = stamp;
+		while (top > 0) {
+			final int v = stack[--top];
+			for (int i = supOffsets.get(v); i < supOffsets.get(v + 1); i++) {
+				final int w = sups.get(i);
+				if (w == b) return true;
+				if (visited[w] == stamp || w > b || !mayReach(w, b)) continue;
+				visited[w] = stamp;
+				stack[top++] = w;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if a and b, or any of their supertypes, are declared disjoint.
+	 */
+	public boolean isDisjoint(int a, int b) {
+		final int[] supersOfB = supertypes(b);
+		final int markB = stamp;
+		for (int y : supersOfB) marked[y] = markB;
+		for (int x : supertypes(a)) {
+			for (int i = djOffsets.get(x); i < djOffsets.get(x + 1); i++) {
+				if (marked[djs.get(i)] == markB) return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a and all its supertypes.
+	 */
+	public int[] supertypes(int a) {
+		stamp++;
+		int top = 0;
+		int count = 0;
+		stack[top++] = a;
+		visited[a] = stamp;
+		while (top > 0) {
+			final int v = stack[--top];
+			found[count++] = v;
+			for (int i = supOffsets.get(v); i < supOffsets.get(v + 1); i++) {
+				final int w = sups.get(i);
+				if (visited[w] == stamp) continue;
+				visited[w] = stamp;
+				stack[top++] = w;
+			}
+		}
+		return Arrays.copyOf(found, count);
+	}
+
+	private boolean mayReach(int a, int b) {
+		return low.get(b) <= low.get(a) && post.get(a) <= post.get(b);
+	}
+
+	private String string(int s) {
+		final int from = stringOffsets.get(s);
+		final byte[] bytes = new byte[stringOffsets.get(s + 1) - from];
+		pool.get(from, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private int compare(int s, byte[] key) {
+		final int from = stringOffsets.get(s);
+		final int len = stringOffsets.get(s + 1) - from;
+		final int common = Math.min(len, key.length);
+		for (int i = 0; i < common; i++) {
+			final int c = Integer.compare(pool.get(from + i) & 0xff, key[i] & 0xff);
+			if (c != 0) return c;
+		}
+		return Integer.compare(len, key.length);
+	}
+
+	private static IntBuffer slice(ByteBuffer buffer, int at, int ints) {
+		return buffer.duplicate().position(at).limit(at + ints * 4).slice().asIntBuffer();
+	}
+
+	/**
+	 * Writes the specialization graph (edges from subtype to supertype), the disjoining graph
+	 * and the qualified names of concepts, keyed by element id, as an index file.
+	 */
+	public static void write(String path, DirectedAcyclicGraph<String, DefaultEdge> sbcSuper, Graph<String, DefaultEdge> djClass,
+			Map<String, String> nameById) throws IOException {
+
+		/*
+		 * Number vertices in topological order, then append those only in the disjoining graph.
+		 */
+
+		final Set<String> ordered = new LinkedHashSet<>();
+		sbcSuper.iterator().forEachRemaining(ordered::add);
+		ordered.addAll(djClass.vertexSet());
+		final String[] ids = ordered.toArray(new String[0]);
+		final int n = ids.length;
+		final Map<String, Integer> index = new HashMap<>();
+		for (int v = 0; v < n; v++) index.put(ids[v], v);
+
+		/*
+		 * Build adjacency arrays.
+		 */
+
+		final int[] supOffsets = new int[n + 1];
+		final List<Integer> supList = new ArrayList<>();
+		final int[] subCounts = new int[n];
+		for (int v = 0; v < n; v++) {
+			supOffsets[v] = supList.size();
+			if (sbcSuper.containsVertex(ids[v])) {
+				for (DefaultEdge e : sbcSuper.outgoingEdgesOf(ids[v])) {
+					final int w = index.get(sbcSuper.getEdgeTarget(e));
+					supList.add(w);
+					subCounts[w]++;
+				}
+			}
+		}
+		supOffsets[n] = supList.size();
+		final int[] sups = supList.stream().mapToInt(Integer::intValue).toArray();
+
+		final int[] subOffsets = new int[n + 1];
+		for (int v = 0; v < n; v++) subOffsets[v + 1] = subOffsets[v] + subCounts[v];
+		final int[] subs = new int[sups.length];
+		final int[] fill = Arrays.copyOf(subOffsets, n);
+		for (int v = 0; v < n; v++) {
+			for (int i = supOffsets[v]; i < supOffsets[v + 1]; i++) subs[fill[sups[i]]++] = v;
+		}
+
+		final int[] djOffsets = new int[n + 1];
+		final List<Integer> djList = new ArrayList<>();
+		for (int v = 0; v < n; v++) {
+			djOffsets[v] = djList.size();
+			for (DefaultEdge e : djClass.edgesOf(ids[v])) {
+				final String other = djClass.getEdgeSource(e).equals(ids[v]) ? djClass.getEdgeTarget(e) : djClass.getEdgeSource(e);
+				djList.add(index.get(other));
+			}
+		}
+		djOffsets[n] = djList.size();
+
+		/*
+		 * Label vertices by an iterative depth-first traversal from the roots down to subtypes.
+		 */
+
+		final int[] pre = new int[n];
+		final int[] post = new int[n];
+		final int[] low = new int[n];
+		final boolean[] seen = new boolean[n];
+		final int[] stack = new int[n];
+		final int[] next = new int[n];
+		int preCount = 0;
+		int postCount = 0;
+		for (int r = n - 1; r >= 0; r--) {
+			if (supOffsets[r + 1] > supOffsets[r] || seen[r]) continue;
+			int top = 0;
+			stack[top++] = r;
+			seen[r] = true;
+			pre[r] = preCount++;
+			next[r] = subOffsets[r];
+			low[r] = Integer.MAX_VALUE;
+			while (top > 0) {
+				final int v = stack[top - 1];
+				if (next[v] < subOffsets[v + 1]) {
+					final int w = subs[next[v]++];
+					if (seen[w]) {
+						low[v] = Math.min(low[v], low[w]);
+						continue;
+					}
+					seen[w] = true;
+					pre[w] = preCount++;
+					next[w] = subOffsets[w];
+					low[w] = Integer.MAX_VALUE;
+					stack[top++] = w;
+				} else {
+					post[v] = postCount++;
+					low[v] = Math.min(low[v], post[v]);
+					top--;
+					if (top > 0) {
+						final int u = stack[top - 1];
+						low[u] = Math.min(low[u], low[v]);
+					}
+				}
+			}
+		}
+
+		/*
+		 * Intern element ids and qualified names.
+		 */
+
+		final byte[][] strings = new byte[2 * n][];
+		for (int v = 0; v < n; v++) {
+			strings[2 * v] = ids[v].getBytes(StandardCharsets.UTF_8);
+			strings[2 * v + 1] = nameById.getOrDefault(ids[v], "").getBytes(StandardCharsets.UTF_8);
+		}
+		final int[] stringOffsets = new int[2 * n + 1];
+		for (int s = 0; s < 2 * n; s++) stringOffsets[s + 1] = stringOffsets[s] + strings[s].length;
+		final Integer[] sorted = IntStream.range(0, 2 * n).filter(s -> strings[s].length > 0).boxed().toArray(Integer[]::new);
+		Arrays.sort(sorted, Comparator.comparing((Integer s) -> strings[s], Arrays::compareUnsigned));
+
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+		out.writeInt(magic);
+		out.writeInt(version);
+		out.writeInt(n);
+		out.writeInt(sups.length);
+		out.writeInt(djList.size());
+		out.writeInt(stringOffsets[2 * n]);
+		out.writeInt(sorted.length);
+		for (int x : stringOffsets) out.writeInt(x);
+		for (int x : sorted) out.writeInt(x);
+		for (int x : supOffsets) out.writeInt(x);
+		for (int x : sups) out.writeInt(x);
+		for (int x : djOffsets) out.writeInt(x);
+		for (int x : djList) out.writeInt(x);
+		for (int x : pre) out.writeInt(x);
+		for (int x : post) out.writeInt(x);
+		for (int x : low) out.writeInt(x);
+		for (byte[] bytes : strings) out.write(bytes);
+		out.close();
+	}
+}
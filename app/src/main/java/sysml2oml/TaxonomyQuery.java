@@ -0,0 +1,94 @@
+package sysml2oml;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+
+/**
+ * Answers specialization and disjointness queries against a {@link TaxonomyIndex} written
+ * by a previous conversion. Invoked as {@code App query ...}; exits with status 1 if a name
+ * is unknown.
+ */
+public class TaxonomyQuery {
+	@Parameter(
+			names = { "--index-path", "-x" },
+			description = "File path for input taxonomy index",
+			required = true,
+			order = 1)
+	private String indexPath;
+
+	@Parameter(
+			names = { "--subtype" },
+			description = "Pair A B: is A a subtype of B",
+			arity = 2,
+			required = false,
+			order = 1)
+	private List<String> subtypeQueries = new ArrayList<>();
+
+	@Parameter(
+			names = { "--disjoint" },
+			description = "Pair A B: are A and B disjoint",
+			arity = 2,
+			required = false,
+			order = 1)
+	private List<String> disjointQueries = new ArrayList<>();
+
+	@Parameter(
+			names = { "--help", "-h" },
+			description = "Displays summary of options",
+			help = true,
+			order = 7)
+	private boolean help;
+
+	private final Logger logger = org.slf4j.LoggerFactory.getLogger(TaxonomyQuery.class);
+
+	public static void main(String[] args) throws IOException {
+		final TaxonomyQuery query = new TaxonomyQuery();
+		final JCommander builder = JCommander.newBuilder().addObject(query).programName("query").build();
+
+		builder.parse(args);
+		if (query.help) {
+			builder.usage();
+			return;
+		}
+
+		if (!query.run()) System.exit(1);
+	}
+
+	/**
+	 * Answers all queries. Returns false if any named vertex is unknown.
+	 */
+	public boolean run() throws IOException {
+		final TaxonomyIndex index = TaxonomyIndex.open(Paths.get(indexPath));
+		logger.info(String.format("opened index of %d vertices", index.size()));
+
+		boolean known = true;
+		for (int i = 0; i + 1 < subtypeQueries.size(); i += 2) {
+			known &= answer(index, "subtype", subtypeQueries.get(i), subtypeQueries.get(i + 1));
+		}
+		for (int i = 0; i + 1 < disjointQueries.size(); i += 2) {
+			known &= answer(index, "disjoint", disjointQueries.get(i), disjointQueries.get(i + 1));
+		}
+		return known;
+	}
+
+	private boolean answer(TaxonomyIndex index, String kind, String aName, String bName) {
+		final int a = index.vertex(aName);
+		final int b = index.vertex(bName);
+		if (a < 0 || b < 0) {
+			logger.error("unknown name " + (a < 0 ? aName : bName));
+			return false;
+		}
+		final long t0 = System.nanoTime();
+		final boolean result = kind.equals("subtype") ? index.isSubtype(a, b) : index.isDisjoint(a, b);
+		final long t1 = System.nanoTime();
+		System.out.println(String.format("%s %s %s %b (%.1f us)", kind, aName, bName, result, (t1 - t0) / 1e3));
+		return true;
+	}
+}
@@ -0,0 +1,41 @@
+package sysml2oml;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+
+import io.opencaesar.oml.Concept;
+import io.opencaesar.oml.Vocabulary;
+import io.opencaesar.oml.util.OmlBuilder;
+
+/**
+ * A group of vocabularies built together by one thread, with its own resource set and
+ * builder, and the vocabularies, concepts and statement counts it produced.
+ */
+class VocabularyPartition {
+	protected final int index;
+	protected final ResourceSet resourceSet;
+	protected final OmlBuilder omlBuilder;
+	protected final List<URI> iris = new ArrayList<>();
+	protected final List<String> ids = new ArrayList<>();
+	protected long size;
+
+	protected final Map<URI, Vocabulary> vocabularies = new HashMap<>();
+	protected final Map<String, Concept> concepts = new HashMap<>();
+	protected final Map<Concept, String> dnByConcept = new HashMap<>();
+	protected final Map<Concept, String> qNameByConcept = new HashMap<>();
+	protected final Map<Vocabulary, Set<Vocabulary>> imported = new HashMap<>();
+	protected long specializations;
+	protected long disjointnessAnnotations;
+
+	VocabularyPartition(int index, ResourceSet resourceSet) {
+		this.index = index;
+		this.resourceSet = resourceSet;
+		this.omlBuilder = new OmlBuilder(resourceSet);
+	}
+}
@@ -0,0 +1,116 @@
+package sysml2oml;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.xmi.impl.XMIResourceFactoryImpl;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedAcyclicGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Node;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * Records the flight recorder events of document parsing, package extraction, pair
+ * evaluation and resource saving, and checks their counts and fields.
+ */
+public class FlightRecorderEventsTest {
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final Set<String> metaclasses = Set.of("sysml:Classifier", "sysml:Class", "sysml:DataType", "sysml:Structure");
+
+	@Test public void eventsAreRecordedWithTheirFields() throws Exception {
+		final File out = folder.newFolder("corpus");
+		SyntheticCorpus.main(new String[] { "-o", out.getPath(), "-p", "2", "-n", "100" });
+		final Path file = out.toPath().resolve(SyntheticCorpus.libraryDir).resolve(SyntheticCorpus.sysmlDir).resolve("SyntheticPackage1.sysmlx");
+		final URI iri = URI.createURI("http://omg.org/SysML-v2/Synthetic-Systems-Library/SyntheticPackage1");
+
+		final Taxonomy2Oml taxonomy2Oml = new Taxonomy2Oml(org.slf4j.LoggerFactory.getLogger(FlightRecorderEventsTest.class),
+				null, null, null, null, metaclasses, null, null, null, null, null, null, 1, null);
+		taxonomy2Oml.compileXPaths();
+		taxonomy2Oml.documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+
+		final DirectedAcyclicGraph<String, DefaultEdge> g = new DirectedAcyclicGraph<>(DefaultEdge.class);
+		final Random random = new Random(11);
+		final int n = 800;
+		for (int i = n - 1; i >= 0; i--) {
+			g.addVertex("v" + i);
+		}
+		for (int i = 1; i < n; i++) {
+			g.addEdge("v" + i, "v" + random.nextInt(i));
+		}
+
+		final URI saved = URI.createFileURI(folder.getRoot().getAbsolutePath() + "/saved.xmi");
+		taxonomy2Oml.outputResourceSet = new ResourceSetImpl();
+		taxonomy2Oml.outputResourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put("xmi", new XMIResourceFactoryImpl());
+		final Resource resource = taxonomy2Oml.outputResourceSet.createResource(saved);
+		resource.getContents().add(EcoreFactory.eINSTANCE.createEPackage());
+
+		/*
+		 * Record with every event enabled and no threshold.
+		 */
+
+		final File jfr = folder.newFile("events.jfr");
+		final PairClosure closure;
+		try (Recording recording = new Recording()) {
+			for (String name : new String[] { "DocumentParse", "PackageExtraction", "PairBatch", "ResourceSave" }) {
+				recording.enable("sysml2oml." + name).withoutThreshold();
+			}
+			recording.start();
+			final Node pkg = taxonomy2Oml.parseDocument(file);
+			assertNotNull(pkg);
+			taxonomy2Oml.processPackage(iri, pkg);
+			closure = PairClosure.compute(g, null);
+			assertTrue(taxonomy2Oml.saveResource(saved));
+			recording.stop();
+			recording.dump(jfr.toPath());
+		}
+		final List<RecordedEvent> events = RecordingFile.readAllEvents(jfr.toPath());
+
+		final List<RecordedEvent> parses = named(events, "sysml2oml.DocumentParse");
+		assertEquals(1, parses.size());
+		assertEquals(file.toString(), parses.get(0).getString("file"));
+		assertEquals("SyntheticPackage1", parses.get(0).getString("packageName"));
+		assertEquals(file.toFile().length(), parses.get(0).getLong("fileSize"));
+
+		final List<RecordedEvent> extractions = named(events, "sysml2oml.PackageExtraction");
+		assertEquals(1, extractions.size());
+		assertEquals("SyntheticPackage1", extractions.get(0).getString("packageName"));
+		assertEquals(iri.toString(), extractions.get(0).getString("iri"));
+		assertEquals(taxonomy2Oml.sbcById.size(), extractions.get(0).getInt("candidates"));
+		assertEquals(100, extractions.get(0).getInt("candidates"));
+
+		final List<RecordedEvent> batches = named(events, "sysml2oml.PairBatch");
+		final long pairs = (long) n * (n - 1) / 2;
+		assertEquals((pairs + PairClosure.pairBatchSize - 1) / PairClosure.pairBatchSize, batches.size());
+		assertEquals(pairs, batches.stream().mapToLong(e -> e.getInt("pairs")).sum());
+		assertEquals(closure.unsatCount(), batches.stream().mapToLong(e -> e.getInt("unsats")).sum());
+		assertEquals(Set.of(0L, 100000L, 200000L, 300000L), batches.stream().map(e -> e.getLong("firstPair")).collect(Collectors.toSet()));
+
+		final List<RecordedEvent> saves = named(events, "sysml2oml.ResourceSave");
+		assertEquals(1, saves.size());
+		assertEquals(saved.toString(), saves.get(0).getString("uri"));
+		assertEquals(new File(saved.toFileString()).length(), saves.get(0).getLong("fileSize"));
+	}
+
+	private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+		return events.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+	}
+}
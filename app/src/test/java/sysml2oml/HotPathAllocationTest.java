@@ -0,0 +1,80 @@
+package sysml2oml;
+
+import java.io.File;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.SimpleLayout;
+import org.apache.log4j.WriterAppender;
+import org.eclipse.emf.common.util.URI;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Measures bytes allocated per candidate element by {@link Taxonomy2Oml#processPackage}
+ * with per-element logging disabled and enabled, and bounds it with logging disabled.
+ */
+public class HotPathAllocationTest {
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final Set<String> metaclasses = Set.of("sysml:Classifier", "sysml:Class", "sysml:DataType", "sysml:Structure");
+	/* Per-element XPath evaluation over the DOM allocated about 2 MB per element. */
+	private static final double maxBytesPerElement = 16 * 1024;
+	private static final com.sun.management.ThreadMXBean threadBean =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	@Test public void guardedLoggingAllocatesLessPerElement() throws Exception {
+		final File out = folder.newFolder("corpus");
+		SyntheticCorpus.main(new String[] { "-o", out.getPath(), "-p", "2", "-n", "2000" });
+		final File file = new File(out, SyntheticCorpus.libraryDir + "/" + SyntheticCorpus.sysmlDir + "/SyntheticPackage1.sysmlx");
+		final Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+
+		final Logger quiet = logger("sysml2oml.hotpath.quiet", Level.INFO);
+		final Logger verbose = logger("sysml2oml.hotpath.verbose", Level.DEBUG);
+
+		for (int i = 0; i < 5; i++) {
+			bytesPerElement(quiet, doc);
+			bytesPerElement(verbose, doc);
+		}
+		final double quietBytes = bytesPerElement(quiet, doc);
+		final double verboseBytes = bytesPerElement(verbose, doc);
+
+		assertTrue(String.format("%.0f bytes per element", quietBytes), quietBytes < maxBytesPerElement);
+		assertTrue(quietBytes < verboseBytes);
+	}
+
+	private static double bytesPerElement(Logger logger, Document doc) throws Exception {
+		final Taxonomy2Oml taxonomy2Oml = new Taxonomy2Oml(logger, null, null, null, null, metaclasses, null, null, null, null, null, null, 1, null);
+		taxonomy2Oml.compileXPaths();
+		final NodeList topNodes = (NodeList) taxonomy2Oml.topPackageXPath.evaluate(doc, XPathConstants.NODESET);
+		final Node pkg = topNodes.item(0);
+		final URI iri = URI.createURI("http://omg.org/SysML-v2/Synthetic-Systems-Library/SyntheticPackage1");
+
+		final long allocated0 = threadBean.getCurrentThreadAllocatedBytes();
+		taxonomy2Oml.processPackage(iri, pkg);
+		final long allocated = threadBean.getCurrentThreadAllocatedBytes() - allocated0;
+
+		assertEquals(2000, taxonomy2Oml.sbcById.size());
+		return (double) allocated / taxonomy2Oml.sbcById.size();
+	}
+
+	private static Logger logger(String name, Level level) {
+		final org.apache.log4j.Logger log4jLogger = org.apache.log4j.Logger.getLogger(name);
+		log4jLogger.setLevel(level);
+		log4jLogger.setAdditivity(false);
+		log4jLogger.addAppender(new WriterAppender(new SimpleLayout(), Writer.nullWriter()));
+		return org.slf4j.LoggerFactory.getLogger(name);
+	}
+}
@@ -0,0 +1,143 @@
+package sysml2oml;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.slf4j.LoggerFactory;
+
+import io.opencaesar.oml.Member;
+import io.opencaesar.oml.Ontology;
+import io.opencaesar.oml.util.OmlConstants;
+
+import static org.junit.Assert.*;
+
+/**
+ * Converts a synthetic corpus with {@link Taxonomy2Oml} and reads the saved vocabularies back
+ * in a canonical, order-insensitive form, so that the outputs of different runs can be
+ * compared. Cross-references are rendered by IRI and must all resolve.
+ */
+class OmlOutput {
+	static final String bundleStem = "synthetic-bundle";
+	private static final Set<String> metaclasses = Set.of("sysml:Classifier", "sysml:Class", "sysml:DataType", "sysml:Structure");
+
+	/**
+	 * Writes the core vocabularies that converted vocabularies import into a directory.
+	 */
+	static Path writeCoreVocabularies(Path dir) throws IOException {
+		Files.writeString(dir.resolve("rdfs.oml"), String.join("\n",
+				"vocabulary <http://www.w3.org/2000/01/rdf-schema#> as rdfs {",
+				"",
+				"\tannotation property label",
+				"",
+				"\tannotation property comment",
+				"}",
+				""));
+		return dir;
+	}
+
+	/**
+	 * Converts a corpus written by {@link SyntheticCorpus} into an output directory, with a
+	 * bundle and the given number of threads.
+	 */
+	static Taxonomy2Oml convert(Path corpus, Path core, Path out, int threads) throws Exception {
+		final Taxonomy2Oml taxonomy2Oml = new Taxonomy2Oml(LoggerFactory.getLogger(OmlOutput.class),
+				List.of(corpus.resolve(SyntheticCorpus.libraryDir).toString()), core.toString(), bundleStem, out.toString(),
+				metaclasses, corpus.resolve("supertypes.csv").toString(), null, null, null, null, null, threads, null);
+		taxonomy2Oml.run();
+		return taxonomy2Oml;
+	}
+
+	/**
+	 * Returns the saved files under an output directory, relative to it.
+	 */
+	static Set<String> files(Path out) throws IOException {
+		return Files.walk(out)
+				.filter(Files::isRegularFile)
+				.map(p -> out.relativize(p).toString())
+				.collect(Collectors.toCollection(TreeSet::new));
+	}
+
+	/**
+	 * Loads the saved vocabularies and bundle under an output directory, with the core
+	 * vocabularies, into a fresh resource set and returns one canonical string per ontology.
+	 */
+	static Set<String> canonical(Path out, Path core) throws IOException {
+		final ResourceSet resourceSet = new ResourceSetImpl();
+		resourceSet.getLoadOptions().put(OmlConstants.RESOLVE_IRI_USING_RESOURCE_SET, true);
+		for (Path p : Files.walk(core).filter(p -> p.toString().endsWith(".oml")).collect(Collectors.toList())) {
+			resourceSet.getResource(URI.createFileURI(p.toAbsolutePath().toString()), true);
+		}
+		final List<Resource> outputs = new ArrayList<>();
+		for (Path p : Files.walk(out).filter(p -> p.toString().endsWith(".omlxmi")).collect(Collectors.toList())) {
+			outputs.add(resourceSet.getResource(URI.createFileURI(p.toAbsolutePath().toString()), true));
+		}
+		assertResolved(resourceSet);
+
+		final Set<String> canonical = new TreeSet<>();
+		outputs.forEach(r -> r.getContents().forEach(o -> canonical.add(render(o))));
+		return canonical;
+	}
+
+	/**
+	 * Resolves all proxies in a resource set and fails if any cross-reference stays unresolved
+	 * or leads to an object outside the resource set.
+	 */
+	static void assertResolved(ResourceSet resourceSet) {
+		EcoreUtil.resolveAll(resourceSet);
+		new ArrayList<>(resourceSet.getResources()).forEach(r -> r.getAllContents().forEachRemaining(o -> {
+			o.eCrossReferences().forEach(t -> {
+				assertFalse("unresolved " + EcoreUtil.getURI(t) + " from " + r.getURI(), t.eIsProxy());
+				assertSame("outside " + EcoreUtil.getURI(t) + " from " + r.getURI(), resourceSet, t.eResource().getResourceSet());
+			});
+		}));
+	}
+
+	/**
+	 * Renders an object with its set features, sorting the values of each many-valued feature.
+	 * Contained objects are rendered in full, referenced ones by IRI.
+	 */
+	private static String render(EObject o) {
+		final List<String> features = new ArrayList<>();
+		for (EStructuralFeature f : o.eClass().getEAllStructuralFeatures()) {
+			if (f.isDerived() || f.isTransient() || !o.eIsSet(f)) continue;
+			final boolean reference = f instanceof EReference;
+			if (reference && ((EReference) f).isContainer()) continue;
+			final Object value = o.eGet(f);
+			final List<?> values = f.isMany() ? (List<?>) value : Collections.singletonList(value);
+			final List<String> rendered = new ArrayList<>();
+			for (Object v : values) {
+				if (!reference) {
+					rendered.add(String.valueOf(v));
+				} else if (((EReference) f).isContainment()) {
+					rendered.add(render((EObject) v));
+				} else {
+					rendered.add(name((EObject) v));
+				}
+			}
+			Collections.sort(rendered);
+			features.add(f.getName() + "=" + rendered);
+		}
+		return o.eClass().getName() + features;
+	}
+
+	private static String name(EObject o) {
+		if (o instanceof Member) return ((Member) o).getIri();
+		if (o instanceof Ontology) return ((Ontology) o).getNamespace();
+		return o.eClass().getName() + " in " + (o.eContainer() == null ? "" : name(o.eContainer()));
+	}
+}
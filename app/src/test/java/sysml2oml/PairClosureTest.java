@@ -0,0 +1,147 @@
+package sysml2oml;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedAcyclicGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.Sets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks {@link PairClosure} against a direct evaluation of all pairs, before and after a
+ * saved closure is brought up to date with an edge and vertex delta, and checks that a corrupt
+ * saved closure reads as none.
+ */
+public class PairClosureTest {
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test public void incrementalMatchesFullEvaluation() throws Exception {
+		final Random random = new Random(7);
+		final int n = 200;
+		final DirectedAcyclicGraph<String, DefaultEdge> g = new DirectedAcyclicGraph<>(DefaultEdge.class);
+		for (int i = n - 1; i >= 0; i--) {
+			g.addVertex("v" + i);
+		}
+		for (int i = 1; i < n; i++) {
+			g.addEdge("v" + i, "v" + random.nextInt(i));
+			if (random.nextInt(4) == 0) g.addEdge("v" + i, "v" + random.nextInt(i));
+		}
+
+		final PairClosure full = PairClosure.compute(g, null);
+		assertMatches(g, full);
+		assertEquals(n * (n - 1) / 2, full.recomputedPairs);
+
+		final File cache = folder.newFile("closure.bin");
+		full.write(cache.getPath());
+		final PairClosure unchanged = PairClosure.compute(g, PairClosure.read(cache.getPath()));
+		assertEquals(0, unchanged.recomputedPairs);
+		assertMatches(g, unchanged);
+
+		/*
+		 * Add and remove a few edges, drop a vertex and add another.
+		 */
+
+		final List<DefaultEdge> edges = new ArrayList<>(g.edgeSet());
+		for (int k = 0; k < 3; k++) {
+			g.removeEdge(edges.get(random.nextInt(edges.size())));
+		}
+		g.addEdge("v150", "v190");
+		g.removeVertex("v120");
+		g.addVertex("w");
+		g.addEdge("w", "v199");
+
+		final PairClosure incremental = PairClosure.compute(g, PairClosure.read(cache.getPath()));
+		assertMatches(g, incremental);
+		assertTrue(incremental.recomputedPairs < n * (n - 1) / 2);
+		assertTrue(incremental.changedPairs > 0);
+
+		/*
+		 * Only add, which keeps the previous numbering.
+		 */
+
+		incremental.write(cache.getPath());
+		g.addEdge("v10", "w");
+		g.addVertex("x");
+		final PairClosure added = PairClosure.compute(g, PairClosure.read(cache.getPath()));
+		assertMatches(g, added);
+		assertTrue(added.recomputedPairs < n * (n - 1) / 2);
+	}
+
+	@Test public void corruptCacheReadsAsNull() throws Exception {
+		final DirectedAcyclicGraph<String, DefaultEdge> g = new DirectedAcyclicGraph<>(DefaultEdge.class);
+		g.addVertex("a");
+		g.addVertex("b");
+		g.addEdge("b", "a");
+		final File cache = folder.newFile("closure.bin");
+		PairClosure.compute(g, null).write(cache.getPath());
+		assertNotNull(PairClosure.read(cache.getPath()));
+
+		final byte[] valid = Files.readAllBytes(cache.toPath());
+		Files.write(cache.toPath(), Arrays.copyOf(valid, valid.length / 2));
+		assertNull(PairClosure.read(cache.getPath()));
+
+		assertNull(PairClosure.read(corrupt(Integer.MIN_VALUE, 0, 0)));
+		assertNull(PairClosure.read(corrupt(-1, 0, 0)));
+		assertNull(PairClosure.read(corrupt(Integer.MAX_VALUE, 0, 0)));
+		assertNull(PairClosure.read(corrupt(1, -1, 0)));
+		assertNull(PairClosure.read(corrupt(1, Integer.MAX_VALUE, 0)));
+		assertNull(PairClosure.read(corrupt(1, 0, -5)));
+		assertNull(PairClosure.read(corrupt(1, 0, Integer.MAX_VALUE)));
+		assertNull(PairClosure.read(corrupt(1, 0, 1)));
+
+		final PairClosure recomputed = PairClosure.compute(g, PairClosure.read(corrupt(1, 0, -5)));
+		assertMatches(g, recomputed);
+	}
+
+	/**
+	 * Writes a cache with a valid header, n vertices, m edges between vertex 0 and itself, and
+	 * a first ancestor set of the given word count filled with set bits.
+	 */
+	private String corrupt(int n, int m, int words) throws Exception {
+		final File file = folder.newFile();
+		try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+			out.writeInt(PairClosure.magic);
+			out.writeInt(PairClosure.version);
+			out.write(new byte[32]);
+			out.writeInt(n);
+			out.writeUTF("a");
+			out.writeInt(m);
+			if (m > 0) {
+				out.writeInt(0);
+				out.writeInt(0);
+			}
+			out.writeInt(words);
+			if (words == 1) out.writeLong(-1L);
+			out.writeInt(0);
+		}
+		return file.getPath();
+	}
+
+	private static void assertMatches(DirectedAcyclicGraph<String, DefaultEdge> g, PairClosure closure) {
+		long unsats = 0;
+		for (Set<String> pair : Sets.combinations(g.vertexSet(), 2)) {
+			final String[] ab = pair.toArray(new String[2]);
+			final Set<String> a = g.getAncestors(ab[0]);
+			a.add(ab[0]);
+			final Set<String> b = g.getAncestors(ab[1]);
+			b.add(ab[1]);
+			final boolean unsat = Sets.intersection(a, b).isEmpty();
+			assertEquals(ab[0] + " " + ab[1], unsat, closure.isUnsatisfiable(ab[0], ab[1]));
+			if (unsat) unsats++;
+		}
+		assertEquals(unsats, closure.unsatCount());
+	}
+}
@@ -0,0 +1,34 @@
+package sysml2oml;
+
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Converts a synthetic corpus serially and in concurrent partitions and checks that the saved
+ * vocabularies, concepts, specializations, imports, annotations and bundle are the same, and
+ * that every reference resolves within the output resource set after the partitions'
+ * resources were moved into it, including those to the core vocabularies.
+ */
+public class PartitionEquivalenceTest {
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test public void partitionedOutputMatchesSerialOutput() throws Exception {
+		final Path corpus = folder.newFolder("corpus").toPath();
+		SyntheticCorpus.main(new String[] { "-o", corpus.toString(), "-p", "8", "-n", "60" });
+		final Path core = OmlOutput.writeCoreVocabularies(folder.newFolder("core").toPath());
+
+		final Path serialOut = folder.newFolder("serial").toPath();
+		OmlOutput.convert(corpus, core, serialOut, 1);
+		final Path partitionedOut = folder.newFolder("partitioned").toPath();
+		final Taxonomy2Oml partitioned = OmlOutput.convert(corpus, core, partitionedOut, 4);
+		OmlOutput.assertResolved(partitioned.outputResourceSet);
+
+		assertEquals(OmlOutput.files(serialOut), OmlOutput.files(partitionedOut));
+		assertEquals(OmlOutput.canonical(serialOut, core), OmlOutput.canonical(partitionedOut, core));
+	}
+}
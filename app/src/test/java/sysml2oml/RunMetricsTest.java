@@ -0,0 +1,179 @@
+package sysml2oml;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Parses the JSON report written by {@link RunMetrics} and checks its structure.
+ */
+public class RunMetricsTest {
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@SuppressWarnings("unchecked")
+	@Test public void reportParsesWithPhasesCountsAndRates() throws Exception {
+		final RunMetrics metrics = new RunMetrics();
+		final RunMetrics.Phase counted = metrics.begin("counted \"phase\"");
+		counted.count("items", 3);
+		counted.count("items", 4);
+		counted.count("other", 1);
+		Thread.sleep(5);
+		counted.end();
+		metrics.begin("empty").end();
+
+		final File report = folder.newFile("metrics.json");
+		metrics.write(report.getPath());
+		final Map<String, Object> root = (Map<String, Object>) new Json(new String(Files.readAllBytes(report.toPath()), "UTF-8")).parse();
+
+		assertTrue(root.get("startTime") instanceof String);
+		assertTrue((Double) root.get("wallNanos") > 0);
+		assertTrue((Double) root.get("availableProcessors") >= 1);
+
+		final List<Object> phases = (List<Object>) root.get("phases");
+		assertEquals(2, phases.size());
+
+		final Map<String, Object> first = (Map<String, Object>) phases.get(0);
+		assertEquals("counted \"phase\"", first.get("name"));
+		for (String key : new String[] { "wallNanos", "cpuNanos", "allocatedBytes", "gcMillis", "heapUsedBytes" }) {
+			assertTrue(key, first.get(key) instanceof Double);
+		}
+		final Map<String, Object> counts = (Map<String, Object>) first.get("counts");
+		assertEquals(7.0, counts.get("items"));
+		assertEquals(1.0, counts.get("other"));
+		final Map<String, Object> perSecond = (Map<String, Object>) first.get("perSecond");
+		assertEquals(counts.keySet(), perSecond.keySet());
+		final double expected = 7 * 1e9 / (Double) first.get("wallNanos");
+		assertEquals(expected, (Double) perSecond.get("items"), 0.06);
+
+		final Map<String, Object> empty = (Map<String, Object>) phases.get(1);
+		assertEquals("empty", empty.get("name"));
+		assertTrue(((Map<String, Object>) empty.get("counts")).isEmpty());
+		assertTrue(((Map<String, Object>) empty.get("perSecond")).isEmpty());
+	}
+
+	@Test public void workerAllocationIsCountedAfterWorkersExit() throws Exception {
+		final RunMetrics metrics = new RunMetrics();
+		final RunMetrics.Phase phase = metrics.begin("workers");
+		final int bytes = 8 << 20;
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			for (Future<byte[]> f : executor.invokeAll(List.of(phase.measured(() -> new byte[bytes]), phase.measured(() -> new byte[bytes])))) {
+				assertEquals(bytes, f.get().length);
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		phase.end();
+		assertTrue(phase.allocatedBytes + " bytes", phase.allocatedBytes >= 2L * bytes);
+	}
+
+	/**
+	 * Minimal strict JSON reader: objects, arrays, strings, numbers, booleans and null.
+	 */
+	private static class Json {
+		private final String s;
+		private int at = 0;
+
+		Json(String s) {
+			this.s = s;
+		}
+
+		Object parse() {
+			final Object value = value();
+			skip();
+			assertEquals("trailing content", s.length(), at);
+			return value;
+		}
+
+		private Object value() {
+			skip();
+			final char c = s.charAt(at);
+			if (c == '{') {
+				final Map<String, Object> map = new LinkedHashMap<>();
+				at++;
+				skip();
+				if (s.charAt(at) == '}') {
+					at++;
+					return map;
+				}
+				do {
+					skip();
+					final String key = string();
+					skip();
+					expect(':');
+					assertNull("duplicate key " + key, map.put(key, value()));
+					skip();
+				} while (s.charAt(at++) == ',');
+				assertEquals('}', s.charAt(at - 1));
+				return map;
+			}
+			if (c == '[') {
+				final List<Object> list = new ArrayList<>();
+				at++;
+				skip();
+				if (s.charAt(at) == ']') {
+					at++;
+					return list;
+				}
+				do {
+					list.add(value());
+					skip();
+				} while (s.charAt(at++) == ',');
+				assertEquals(']', s.charAt(at - 1));
+				return list;
+			}
+			if (c == '"') return string();
+			if (s.startsWith("true", at)) { at += 4; return true; }
+			if (s.startsWith("false", at)) { at += 5; return false; }
+			if (s.startsWith("null", at)) { at += 4; return null; }
+			final int start = at;
+			while (at < s.length() && "+-0123456789.eE".indexOf(s.charAt(at)) >= 0) at++;
+			assertTrue("expected value at " + start, at > start);
+			return Double.parseDouble(s.substring(start, at));
+		}
+
+		private String string() {
+			expect('"');
+			final StringBuilder sb = new StringBuilder();
+			char c;
+			while ((c = s.charAt(at++)) != '"') {
+				if (c == '\\') {
+					c = s.charAt(at++);
+					if (c == 'u') {
+						sb.append((char) Integer.parseInt(s.substring(at, at + 4), 16));
+						at += 4;
+						continue;
+					}
+					assertTrue("bad escape", "\"\\/bfnrt".indexOf(c) >= 0);
+					sb.append("\"\\/\b\f\n\r\t".charAt("\"\\/bfnrt".indexOf(c)));
+				} else {
+					assertTrue("control character in string", c >= 0x20);
+					sb.append(c);
+				}
+			}
+			return sb.toString();
+		}
+
+		private void expect(char c) {
+			assertEquals(c, s.charAt(at++));
+		}
+
+		private void skip() {
+			while (at < s.length() && Character.isWhitespace(s.charAt(at))) at++;
+		}
+	}
+}
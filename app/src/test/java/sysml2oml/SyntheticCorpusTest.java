@@ -0,0 +1,59 @@
+package sysml2oml;
+
+import java.io.File;
+import java.io.FileReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import com.opencsv.CSVReaderHeaderAware;
+
+import static org.junit.Assert.*;
+
+public class SyntheticCorpusTest {
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test public void generatesLibraryPackagesAndMap() throws Exception {
+		final File out = folder.newFolder("corpus");
+		SyntheticCorpus.main(new String[] { "-o", out.getPath(), "-p", "4", "-n", "30", "-d", "3", "-f", "2", "--kerml-packages", "2" });
+
+		final File library = new File(out, SyntheticCorpus.libraryDir);
+		final Map<String, Long> byExtension = Files.walk(library.toPath())
+				.filter(Files::isRegularFile)
+				.collect(Collectors.groupingBy(p -> p.toString().replaceAll("\\A.*\\.", ""), Collectors.counting()));
+		assertEquals(Long.valueOf(2), byExtension.get("kermlx"));
+		assertEquals(Long.valueOf(2), byExtension.get("sysmlx"));
+
+		final Path last = library.toPath().resolve(SyntheticCorpus.sysmlDir).resolve("SyntheticPackage3.sysmlx");
+		final Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(last.toFile());
+		final NodeList topNodes = (NodeList) XPathFactory.newInstance().newXPath().evaluate(
+				"Namespace/ownedRelationship[@type='sysml:OwningMembership']/ownedRelatedElement[@type='sysml:LibraryPackage']",
+				doc, XPathConstants.NODESET);
+		assertEquals(1, topNodes.getLength());
+		final NodeList classes = (NodeList) XPathFactory.newInstance().newXPath().evaluate(
+				"ownedRelationship[@type='sysml:OwningMembership']/ownedRelatedElement[@declaredName and @type!='sysml:Feature']",
+				topNodes.item(0), XPathConstants.NODESET);
+		assertEquals(30, classes.getLength());
+
+		final CSVReaderHeaderAware csvReader = new CSVReaderHeaderAware(new FileReader(new File(out, "supertypes.csv")));
+		final Map<String, String> stMap = new HashMap<>();
+		Map<String, String> tm;
+		while ((tm = csvReader.readMap()) != null) {
+			stMap.put(tm.get("Abstract syntax"), tm.get("Implicit subclassification to superclassifier"));
+		}
+		csvReader.close();
+		assertEquals("SyntheticPackage0::Anything", stMap.get("Class"));
+	}
+}
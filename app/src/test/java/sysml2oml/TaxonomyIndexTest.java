@@ -0,0 +1,69 @@
+package sysml2oml;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.graph.DirectedAcyclicGraph;
+import org.jgrapht.graph.SimpleDirectedGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class TaxonomyIndexTest {
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test public void answersMatchGraphClosure() throws Exception {
+		final Random random = new Random(7);
+		final DirectedAcyclicGraph<String, DefaultEdge> sbcSuper = new DirectedAcyclicGraph<String, DefaultEdge>(DefaultEdge.class);
+		final SimpleDirectedGraph<String, DefaultEdge> djClass = new SimpleDirectedGraph<String, DefaultEdge>(DefaultEdge.class);
+		final Map<String, String> nameById = new HashMap<>();
+		final int n = 300;
+		for (int v = 0; v < n; v++) {
+			final String id = "id" + v;
+			sbcSuper.addVertex(id);
+			djClass.addVertex(id);
+			nameById.put(id, "pkg:C" + v);
+			for (int j = 0; v > 0 && j < 1 + random.nextInt(3); j++) {
+				sbcSuper.addEdge(id, "id" + random.nextInt(v));
+			}
+			if (v > 1 && random.nextInt(10) == 0) djClass.addEdge(id, "id" + (1 + random.nextInt(v - 1)));
+		}
+		djClass.addVertex("external");
+		djClass.addEdge("id5", "external");
+
+		final File file = folder.newFile("taxonomy.idx");
+		TaxonomyIndex.write(file.getPath(), sbcSuper, djClass, nameById);
+		final TaxonomyIndex index = TaxonomyIndex.open(Path.of(file.getPath()));
+
+		assertEquals(n + 1, index.size());
+		assertEquals(index.vertex("id42"), index.vertex("pkg:C42"));
+		assertEquals("pkg:C42", index.qualifiedName(index.vertex("id42")));
+		assertEquals("external", index.id(index.vertex("external")));
+		assertEquals(-1, index.vertex("missing"));
+		assertEquals("", index.qualifiedName(index.vertex("external")));
+		assertEquals(-1, index.vertex(""));
+
+		for (int a = 0; a < n; a++) {
+			final Set<String> supers = sbcSuper.getDescendants("id" + a);
+			supers.add("id" + a);
+			for (int b = 0; b < n; b++) {
+				final String bId = "id" + b;
+				assertEquals("id" + a + " <: " + bId, supers.contains(bId), index.isSubtype(index.vertex("id" + a), index.vertex(bId)));
+
+				final Set<String> bSupers = sbcSuper.getDescendants(bId);
+				bSupers.add(bId);
+				final boolean disjoint = djClass.edgeSet().stream().anyMatch(e ->
+						supers.contains(djClass.getEdgeSource(e)) && bSupers.contains(djClass.getEdgeTarget(e))
+						|| supers.contains(djClass.getEdgeTarget(e)) && bSupers.contains(djClass.getEdgeSource(e)));
+				if (b % 7 == 0) assertEquals("id" + a + " disjoint " + bId, disjoint, index.isDisjoint(index.vertex("id" + a), index.vertex(bId)));
+			}
+		}
+	}
+}
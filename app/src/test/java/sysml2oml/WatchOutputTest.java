@@ -0,0 +1,59 @@
+package sysml2oml;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs a real conversion, renames a classifier and deletes a package in watch mode, and checks
+ * that the saved output matches a fresh conversion of the edited corpus. This covers unloading
+ * rebuilt vocabularies, re-resolving references to them from unchanged ones, restarting the
+ * builder, rebuilding the bundle and deleting outputs.
+ */
+public class WatchOutputTest {
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test public void updatedOutputMatchesFreshConversion() throws Exception {
+		final Path corpus = folder.newFolder("corpus").toPath();
+		SyntheticCorpus.main(new String[] { "-o", corpus.toString(), "-p", "6", "-n", "60" });
+		final Path core = OmlOutput.writeCoreVocabularies(folder.newFolder("core").toPath());
+		final Path in = corpus.resolve(SyntheticCorpus.libraryDir);
+		final Path systems = in.resolve(SyntheticCorpus.sysmlDir);
+
+		final Path incrementalOut = folder.newFolder("incremental").toPath();
+		final Taxonomy2Oml incremental = OmlOutput.convert(corpus, core, incrementalOut, 1);
+
+		/*
+		 * Rename a classifier, and delete a package that later packages refer to.
+		 */
+
+		final Path renamed = systems.resolve("SyntheticPackage3.sysmlx");
+		Files.writeString(renamed, Files.readString(renamed).replace("declaredName=\"Element3_3\"", "declaredName=\"Element3_3x\""));
+		final Path deleted = systems.resolve("SyntheticPackage2.sysmlx");
+		final Path deletedOutput = Paths.get(incremental.outputFn.get(URI.createURI("http://omg.org/SysML-v2/Synthetic-Systems-Library/SyntheticPackage2")));
+		assertTrue(Files.exists(deletedOutput));
+		Files.delete(deleted);
+
+		final Map<Path, Path> changed = new LinkedHashMap<>();
+		changed.put(renamed, in);
+		changed.put(deleted, in);
+		incremental.update(changed);
+
+		assertFalse(Files.exists(deletedOutput));
+		OmlOutput.assertResolved(incremental.outputResourceSet);
+
+		final Path freshOut = folder.newFolder("fresh").toPath();
+		OmlOutput.convert(corpus, core, freshOut, 1);
+		assertEquals(OmlOutput.files(freshOut), OmlOutput.files(incrementalOut));
+		assertEquals(OmlOutput.canonical(freshOut, core), OmlOutput.canonical(incrementalOut, core));
+	}
+}
@@ -0,0 +1,208 @@
+package sysml2oml;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.eclipse.emf.common.util.URI;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that {@link Taxonomy2Oml#update} leaves the taxonomy graphs as a fresh extraction
+ * would, rebuilds only the affected vocabularies, and keeps the previous version of a package
+ * whose new version cannot be parsed or would close a cycle. Vocabulary construction and the
+ * builder are stubbed out, so no OML library code runs; {@link WatchOutputTest} covers that.
+ */
+public class WatchUpdateTest {
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	private static final Set<String> metaclasses = Set.of("sysml:Classifier", "sysml:Class", "sysml:DataType", "sysml:Structure");
+
+	@Test public void updateMatchesFreshExtraction() throws Exception {
+		final File out = folder.newFolder("corpus");
+		SyntheticCorpus.main(new String[] { "-o", out.getPath(), "-p", "10", "-n", "200" });
+		final Path in = out.toPath().resolve(SyntheticCorpus.libraryDir);
+		final Path systems = in.resolve(SyntheticCorpus.sysmlDir);
+
+		final Extraction incremental = new Extraction(in);
+
+		/*
+		 * Rename one classifier and delete a whole package.
+		 */
+
+		final Path renamed = systems.resolve("SyntheticPackage3.sysmlx");
+		Files.writeString(renamed, Files.readString(renamed).replace("declaredName=\"Element3_3\"", "declaredName=\"Element3_3x\""));
+		final Path deleted = systems.resolve("SyntheticPackage5.sysmlx");
+		Files.delete(deleted);
+
+		final Map<Path, Path> changed = new LinkedHashMap<>();
+		changed.put(renamed, in);
+		changed.put(deleted, in);
+		incremental.built.clear();
+		incremental.update(changed);
+
+		final Extraction fresh = new Extraction(in);
+		assertSameExtraction(fresh, incremental);
+		assertTrue(incremental.built.contains(URI.createURI("http://omg.org/SysML-v2/Synthetic-Systems-Library/SyntheticPackage3")));
+		assertTrue(incremental.built.size() < fresh.packages.size());
+
+		/*
+		 * Give the root of all implicit specializations a new id.
+		 */
+
+		final Path rooted = in.resolve(SyntheticCorpus.kermlDir).resolve("SyntheticPackage0.kermlx");
+		final String root = Files.readString(rooted);
+		Files.writeString(rooted, root.replace(elementId(root, SyntheticCorpus.rootName), "new-root-id"));
+		incremental.update(Map.of(rooted, in));
+		assertSameExtraction(new Extraction(in), incremental);
+	}
+
+	private static void assertSameExtraction(Extraction fresh, Extraction incremental) {
+		assertEquals(fresh.edges(), incremental.edges());
+		assertEquals(fresh.vertices(), incremental.vertices());
+		assertEquals(fresh.sbcById.keySet(), incremental.sbcById.keySet());
+		assertEquals(fresh.packages.keySet(), incremental.vocabularies.keySet());
+	}
+
+	@Test public void malformedFileKeepsPreviousPackage() throws Exception {
+		final File out = folder.newFolder("corpus");
+		SyntheticCorpus.main(new String[] { "-o", out.getPath(), "-p", "6", "-n", "100" });
+		final Path in = out.toPath().resolve(SyntheticCorpus.libraryDir);
+		final Path broken = in.resolve(SyntheticCorpus.sysmlDir).resolve("SyntheticPackage4.sysmlx");
+
+		final Extraction incremental = new Extraction(in);
+		final Set<String> edges = incremental.edges();
+		final Set<String> vertices = incremental.vertices();
+
+		final String content = Files.readString(broken);
+		Files.writeString(broken, content.substring(0, content.length() / 2));
+		incremental.built.clear();
+		incremental.update(Map.of(broken, in));
+
+		assertEquals(edges, incremental.edges());
+		assertEquals(vertices, incremental.vertices());
+		assertTrue(incremental.packages.containsKey(URI.createURI("http://omg.org/SysML-v2/Synthetic-Systems-Library/SyntheticPackage4")));
+		assertTrue(incremental.built.isEmpty());
+	}
+
+	@Test public void cyclicChangeIsRolledBack() throws Exception {
+		final File out = folder.newFolder("corpus");
+		SyntheticCorpus.main(new String[] { "-o", out.getPath(), "-p", "6", "-n", "100" });
+		final Path in = out.toPath().resolve(SyntheticCorpus.libraryDir);
+		final Path cyclic = in.resolve(SyntheticCorpus.sysmlDir).resolve("SyntheticPackage3.sysmlx");
+
+		final Extraction incremental = new Extraction(in);
+		final Set<String> edges = incremental.edges();
+		final Set<String> vertices = incremental.vertices();
+		final Set<String> ids = new HashSet<>(incremental.sbcById.keySet());
+
+		/*
+		 * Element3_1 specializes Element3_0; make Element3_0 specialize Element3_1 as well, and
+		 * rename another classifier in the same change.
+		 */
+
+		final String content = Files.readString(cyclic).replace("declaredName=\"Element3_3\"", "declaredName=\"Element3_3x\"");
+		final String specialization = "<ownedRelationship xsi:type=\"sysml:Subclassification\" elementId=\"cycle\" superclassifier=\""
+				+ elementId(content, "Element3_1") + "\"/>";
+		final Matcher tag = memberTag("Element3_0").matcher(content);
+		assertTrue(tag.find());
+		final String opening = tag.group();
+		final String edited = opening.endsWith("/>")
+				? opening.substring(0, opening.length() - 2) + ">" + specialization + "</ownedRelatedElement>"
+				: opening + specialization;
+		Files.writeString(cyclic, content.substring(0, tag.start()) + edited + content.substring(tag.end()));
+		incremental.update(Map.of(cyclic, in));
+
+		assertEquals(edges, incremental.edges());
+		assertEquals(vertices, incremental.vertices());
+		assertEquals(ids, incremental.sbcById.keySet());
+		assertTrue(incremental.idByName.containsKey("SyntheticPackage3:Element3_3"));
+		assertFalse(incremental.idByName.containsKey("SyntheticPackage3:Element3_3x"));
+	}
+
+	private static Pattern memberTag(String declaredName) {
+		return Pattern.compile("<ownedRelatedElement[^>]*declaredName=\"" + Pattern.quote(declaredName) + "\"[^>]*>");
+	}
+
+	private static String elementId(String content, String declaredName) {
+		final Matcher tag = memberTag(declaredName).matcher(content);
+		assertTrue(declaredName, tag.find());
+		final Matcher id = Pattern.compile("elementId=\"([^\"]*)\"").matcher(tag.group());
+		assertTrue(id.find());
+		return id.group(1);
+	}
+
+	private static class Extraction extends Taxonomy2Oml {
+		final Set<URI> built = new HashSet<>();
+
+		Extraction(Path in) throws Exception {
+			super(org.slf4j.LoggerFactory.getLogger(WatchUpdateTest.class), List.of(in.toString()), null, null,
+					in.getParent().resolve("oml").toString(), WatchUpdateTest.metaclasses, null, null, null, null, null, null, 1, null);
+			compileXPaths();
+			documentBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+			for (String m : SyntheticCorpus.metaclasses) {
+				stMap.put("sysml:" + m, "SyntheticPackage0:" + SyntheticCorpus.rootName);
+			}
+			Files.walk(in)
+			.filter(p -> xmiPattern.matcher(p.getFileName().toString()).matches())
+			.forEach(p -> loadDocument(in, p));
+			packages.forEach((iri, pkg) -> processPackage(iri, pkg));
+			mergeImplicitEdges();
+			packages.keySet().forEach(iri -> createVocabulary(iri));
+		}
+
+		@Override protected void createVocabulary(URI iri) {
+			built.add(iri);
+			vocabularies.put(iri, null);
+		}
+
+		@Override protected void addConcept(String id, Map<String, String> c) {
+		}
+
+		@Override protected void startBuilder() {
+		}
+
+		@Override protected void finishBuilder() {
+		}
+
+		@Override protected boolean saveResource(URI uri) {
+			return true;
+		}
+
+		Set<String> edges() {
+			final Set<String> edges = new TreeSet<>();
+			sbcSuper.edgeSet().forEach(e -> edges.add((implicitEdges.contains(e) ? "implicitly specializes " : "specializes ")
+					+ key(sbcSuper.getEdgeSource(e)) + " " + key(sbcSuper.getEdgeTarget(e))));
+			djClass.edgeSet().forEach(e -> edges.add("disjoint " + key(djClass.getEdgeSource(e)) + " " + key(djClass.getEdgeTarget(e))));
+			sbcImplicit.edgeSet().forEach(e -> edges.add("implicit " + sbcImplicit.getEdgeSource(e) + " " + sbcImplicit.getEdgeTarget(e)));
+			return edges;
+		}
+
+		Set<String> vertices() {
+			final Set<String> vertices = new TreeSet<>();
+			sbcSuper.vertexSet().forEach(v -> vertices.add("specializes " + key(v)));
+			djClass.vertexSet().forEach(v -> vertices.add("disjoint " + key(v)));
+			sbcImplicit.vertexSet().forEach(v -> vertices.add("implicit " + v));
+			return vertices;
+		}
+
+		private String key(String id) {
+			final Map<String, String> c = sbcById.get(id);
+			return c == null ? id : c.get("iri") + "#" + c.get("name");
+		}
+	}
+}